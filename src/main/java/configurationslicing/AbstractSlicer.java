@@ -0,0 +1,99 @@
+package configurationslicing;
+
+import java.util.List;
+
+/**
+ * Base class for slicers that can do more than {@link Slicer} asks for: run on several threads
+ * and tell which items a submitted slice changes.  Slicers that can also be accumulated in chunks
+ * and kept up to date item by item extend {@link IncrementalSlicer}.
+ *
+ * {@link Slicer} itself is unchanged, so slicers written against it keep working.  The defaults here
+ * are what such a slicer gets: accumulated and transformed on one thread, rebuilt from scratch each
+ * time, and every item transformed.  Call these through {@link #of(Slicer)}, which works for any slicer.
+ */
+public abstract class AbstractSlicer<T, I> implements Slicer<T, I> {
+
+    /**
+     * Whether transforming the item with the submitted slice could change it, compared to
+     * the original slice the page was rendered from.  Items for which this returns false are
+     * not transformed at all, so that editing one row does not rewrite every item.
+     */
+    public boolean isChanged(T original, T t, I i) {
+        return true;
+    }
+
+    /**
+     * @return the values this slice holds for the item, as text for previews; null if it holds none
+     *         or the slicer cannot tell
+     */
+    public List<String> getValueStrings(T t, I i) {
+        return null;
+    }
+
+    /**
+     * Slicers whose accumulate and transform can safely run on several threads at
+     * once return true here; all others are processed on the calling thread.
+     */
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Slicers whose accumulate alone can safely run on several threads at once return true here,
+     * so that reading is parallel even if writing is not.  Defaults to {@link #isThreadSafe()}.
+     */
+    public boolean isAccumulateThreadSafe() {
+        return isThreadSafe();
+    }
+
+    /**
+     * @return the slicer itself, or an adapter with the defaults for slicers that only implement {@link Slicer}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, I> AbstractSlicer<T, I> of(Slicer<T, I> slicer) {
+        if (slicer instanceof AbstractSlicer) {
+            return (AbstractSlicer<T, I>) slicer;
+        }
+        return new Adapter<T, I>(slicer);
+    }
+
+    private static class Adapter<T, I> extends AbstractSlicer<T, I> {
+        private final Slicer<T, I> slicer;
+
+        Adapter(Slicer<T, I> slicer) {
+            this.slicer = slicer;
+        }
+
+        public String getName() {
+            return slicer.getName();
+        }
+
+        public String getUrl() {
+            return slicer.getUrl();
+        }
+
+        public List<I> getWorkDomain() {
+            return slicer.getWorkDomain();
+        }
+
+        public T getInitialAccumulator() {
+            return slicer.getInitialAccumulator();
+        }
+
+        public T accumulate(T t, I i) {
+            return slicer.accumulate(t, i);
+        }
+
+        public boolean transform(T t, I i) {
+            return slicer.transform(t, i);
+        }
+
+        public boolean isLoaded() {
+            return slicer.isLoaded();
+        }
+
+        public int compareTo(Slicer<T, I> o) {
+            return slicer.compareTo(o);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package configurationslicing;
+
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sf.json.JSONObject;
+
+import org.acegisecurity.Authentication;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * Applies a submitted slice in the background, so that the submit returns right away.
+ * The browser is sent to this task's page, which shows the progress and allows to cancel.
+ * Cancelling stops before the next item; items already transformed stay transformed.
+ */
+public class ApplyTask<T, I> implements Runnable, SliceWorkerPool.Progress<I> {
+
+    private static final Logger LOGGER = Logger.getLogger(ApplyTask.class.getName());
+
+    public enum State {
+        QUEUED, RUNNING, DONE, CANCELLED
+    }
+
+    private final int id;
+    private final ConfigurationSlicing parent;
+    private final Slicer<T, I> slicer;
+    private final T slice;
+    private final List<I> items;
+    // the user who submitted, so that the transform runs with their permissions
+    private final Authentication auth;
+
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger changed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final List<ItemOutcome<I>> outcomes = Collections.synchronizedList(new ArrayList<ItemOutcome<I>>());
+    private volatile boolean cancelled;
+    private volatile State state = State.QUEUED;
+    private volatile long started;
+    private volatile long finished;
+
+    ApplyTask(int id, ConfigurationSlicing parent, Slicer<T, I> slicer, T slice, List<I> items) {
+        this.id = id;
+        this.parent = parent;
+        this.slicer = slicer;
+        this.slice = slice;
+        this.items = items;
+        this.auth = Jenkins.getAuthentication();
+    }
+
+    public void run() {
+        if (cancelled) {
+            state = State.CANCELLED;
+            return;
+        }
+        started = System.currentTimeMillis();
+        state = State.RUNNING;
+        SecurityContext old = ACL.impersonate(auth);
+        try {
+            SliceWorkerPool.transform(slicer, slice, items, this);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Apply " + id + " of " + slicer.getUrl() + " did not complete", e);
+        } finally {
+            SecurityContextHolder.setContext(old);
+            finished = System.currentTimeMillis();
+            state = cancelled ? State.CANCELLED : State.DONE;
+            SlicerMetrics.of(slicer).applied((finished - started) * 1000000);
+        }
+        LOGGER.info("Applied " + slicer.getUrl() + ": " + changed.get() + " changed, " + failed.get()
+                + " failed, " + done.get() + " of " + items.size() + " items that differed were processed in "
+                + (finished - started) + "ms (" + ItemBatch.getSavesAvoided() + " saves avoided by batching since startup)");
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void completed(ItemOutcome<I> outcome) {
+        outcomes.add(outcome);
+        if (outcome.isFailed()) {
+            failed.incrementAndGet();
+        } else if (outcome.isChanged()) {
+            changed.incrementAndGet();
+        }
+        done.incrementAndGet();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public ConfigurationSlicing getParent() {
+        return parent;
+    }
+
+    public Slicer<T, I> getSlicer() {
+        return slicer;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isRunning() {
+        return state == State.QUEUED || state == State.RUNNING;
+    }
+
+    public int getTotal() {
+        return items.size();
+    }
+
+    public int getDone() {
+        return done.get();
+    }
+
+    public int getChangedCount() {
+        return changed.get();
+    }
+
+    public int getFailedCount() {
+        return failed.get();
+    }
+
+    public List<I> getChanged() {
+        List<I> list = new ArrayList<I>();
+        for (ItemOutcome<I> outcome: getOutcomes()) {
+            if (outcome.isChanged()) {
+                list.add(outcome.getItem());
+            }
+        }
+        return list;
+    }
+
+    public List<ItemOutcome<I>> getFailures() {
+        List<ItemOutcome<I>> list = new ArrayList<ItemOutcome<I>>();
+        for (ItemOutcome<I> outcome: getOutcomes()) {
+            if (outcome.isFailed()) {
+                list.add(outcome);
+            }
+        }
+        return list;
+    }
+
+    private List<ItemOutcome<I>> getOutcomes() {
+        synchronized (outcomes) {
+            return new ArrayList<ItemOutcome<I>>(outcomes);
+        }
+    }
+
+    /**
+     * @return milliseconds spent so far, or in total once finished
+     */
+    public long getDuration() {
+        if (started == 0) {
+            return 0;
+        }
+        return (finished == 0 ? System.currentTimeMillis() : finished) - started;
+    }
+
+    public void doProgress(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        json.put("slicer", slicer.getUrl());
+        json.put("state", state.name());
+        json.put("total", getTotal());
+        json.put("done", getDone());
+        json.put("changed", getChangedCount());
+        json.put("failed", getFailedCount());
+        json.put("duration", getDuration());
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(json.toString());
+    }
+
+    @RequirePOST
+    public void doCancel(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        cancelled = true;
+        LOGGER.info("Cancelling apply " + id + " of " + slicer.getUrl());
+        rsp.sendRedirect2(".");
+    }
+}
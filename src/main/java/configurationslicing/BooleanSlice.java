@@ -7,6 +7,7 @@ import hudson.model.Descriptor.FormException;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -35,6 +36,18 @@ public class BooleanSlice<I> extends Slice {
         nameToValue.put(name, value);
     }
 
+    /**
+     * Folds the values accumulated by another slice into this one.
+     */
+    public BooleanSlice<I> merge(BooleanSlice<I> other) {
+        nameToValue.putAll(other.nameToValue);
+        return this;
+    }
+
+    public void remove(String name) {
+        nameToValue.remove(name);
+    }
+
     public boolean exists(String name) {
       return nameToValue.get(name) != null;
     }
@@ -53,7 +66,7 @@ public class BooleanSlice<I> extends Slice {
     
     public List<I> getConfiguredItems() {
     	List<I> items = new ArrayList<I>();
-    	List<I> all = spec.getWorkDomain();
+    	List<I> all = WorkDomainIndex.of(spec).getItems();
     	for (I i: all) {
     		String name = spec.getName(i);
     		if (nameToValue.containsKey(name)) {
@@ -62,7 +75,44 @@ public class BooleanSlice<I> extends Slice {
     	}
     	return items;
     }
+
+    /**
+     * @return the items inside the window; items outside of it are not posted and so stay unchanged
+     */
+    public List<I> getConfiguredItems(SliceWindow window) {
+    	List<I> items = getConfiguredItems();
+    	if (window == null) {
+    		return items;
+    	}
+    	List<I> matching = new ArrayList<I>();
+    	for (I i: items) {
+    		String name = spec.getName(i);
+    		if (window.matchesName(name) && window.matchesValue(String.valueOf(get(name)))) {
+    			matching.add(i);
+    		}
+    	}
+    	return window.page(matching);
+    }
     
+    /**
+     * Pages over items, then groups the items of the page by "true" and "false".
+     */
+    @Override
+    public Map<String, List<String>> getValueGroups(SliceWindow window) {
+    	Map<String, List<String>> groups = new LinkedHashMap<String, List<String>>();
+    	for (I i: getConfiguredItems(window)) {
+    		String name = spec.getName(i);
+    		String value = String.valueOf(get(name));
+    		List<String> names = groups.get(value);
+    		if (names == null) {
+    			names = new ArrayList<String>();
+    			groups.put(value, names);
+    		}
+    		names.add(name);
+    	}
+    	return groups;
+    }
+
     @Override
     public Slice newInstance(StaplerRequest req, JSONObject formData)
            throws FormException {
@@ -1,11 +1,12 @@
 package configurationslicing;
 
 
+import java.util.Collections;
 import java.util.List;
 
 
 
-public class BooleanSlicer<I> implements Slicer<BooleanSlice<I>, I>{
+public class BooleanSlicer<I> extends IncrementalSlicer<BooleanSlice<I>, I>{
     public static interface BooleanSlicerSpec<I> {
         public abstract String getName();
         public abstract String getUrl();
@@ -20,9 +21,20 @@ public class BooleanSlicer<I> implements Slicer<BooleanSlice<I>, I>{
     public BooleanSlicer(BooleanSlicerSpec<I> spec) {
         this.spec=spec;
     }
+    public BooleanSlicerSpec<I> getSpec() {
+    	return spec;
+    }
     public boolean isLoaded() {
     	return true;
     }
+    /**
+     * Override this to return true once the spec has been checked to only touch the item
+     * it is given, so it can be called for different items from several threads at once.
+     */
+    @Override
+    public boolean isThreadSafe() {
+    	return false;
+    }
     public BooleanSlice<I> getInitialAccumulator() {
         return new BooleanSlice<I>(spec);
     }
@@ -32,6 +44,35 @@ public class BooleanSlicer<I> implements Slicer<BooleanSlice<I>, I>{
         return t;
     }
 
+    @Override
+    public BooleanSlice<I> remove(BooleanSlice<I> t, I i) {
+        t.remove(spec.getName(i));
+        return t;
+    }
+
+    @Override
+    public BooleanSlice<I> combine(BooleanSlice<I> t1, BooleanSlice<I> t2) {
+        return t1.merge(t2);
+    }
+
+    @Override
+    public boolean isChanged(BooleanSlice<I> original, BooleanSlice<I> t, I i) {
+        String name = spec.getName(i);
+        if (!t.exists(name)) {
+            return false;
+        }
+        return !original.exists(name) || original.get(name) != t.get(name);
+    }
+
+    @Override
+    public List<String> getValueStrings(BooleanSlice<I> t, I i) {
+        String name = spec.getName(i);
+        if (!t.exists(name)) {
+            return null;
+        }
+        return Collections.singletonList(String.valueOf(t.get(name)));
+    }
+
     public boolean transform(BooleanSlice<I> t, I i) {
       if (t.exists(spec.getName(i))) {
         return spec.setValue(i, t.get(spec.getName(i)));
@@ -49,7 +90,7 @@ public class BooleanSlicer<I> implements Slicer<BooleanSlice<I>, I>{
     }
     
     public List<I> getWorkDomain() {
-        return spec.getWorkDomain();
+        return WorkDomainIndex.of(spec).getItems();
     }
     
     public int compareTo(Slicer<BooleanSlice<I>, I> o) {
@@ -11,22 +11,50 @@ import hudson.model.Hudson;
 import hudson.model.View;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 
+import net.sf.json.JSONObject;
+
+import org.apache.commons.fileupload.FileItem;
+import org.kohsuke.stapler.Stapler;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
 
 @Extension
 public class ConfigurationSlicing extends ManagementLink {
 
 	private static final Logger LOGGER = Logger.getLogger(ConfigurationSlicing.class.getName());
 	
+	// finished applies are kept this long for their pages, the oldest are dropped first
+	private static final int MAX_APPLIES = 50;
+
+	private int nextApplyId = 1;
+	private final Map<Integer, ApplyTask<?, ?>> applies = new LinkedHashMap<Integer, ApplyTask<?, ?>>();
+
+	// plans hold a whole submitted slice, so keep fewer of them
+	private static final int MAX_PLANS = 10;
+
+	private int nextPlanId = 1;
+	private final Map<Integer, SlicePlan<?, ?>> plans = new LinkedHashMap<Integer, SlicePlan<?, ?>>();
+
+	private volatile Registry registry;
+
     @Override
     public String getDescription() {
         return "Configure a single aspect across a group of items, in contrast to the traditional configuration of all aspects of a single item";
@@ -46,24 +74,77 @@ public class ConfigurationSlicing extends ManagementLink {
         return "Configuration Slicing";
     }
 
-    @SuppressWarnings("unchecked")
 	public List<Slicer> getAxes() {
-    	ExtensionList<Slicer> elist = Jenkins.getInstance().getExtensionList(Slicer.class);
-    	List<Slicer> list = new ArrayList<Slicer>();
-    	for (Slicer slicer: elist) {
-    		if (slicer.isLoaded()) {
-    			if (slicer instanceof SlicerLoader) {
-    				slicer = ((SlicerLoader) slicer).getDelegate();
-    			}
-    			list.add(slicer);
-    			LOGGER.fine("Loaded: " + slicer.getClass());
-    		} else {
-    			LOGGER.warning("NOT Loaded: " + slicer.getClass());
-    		}
-    	}
-    	Collections.sort(list);
-    	return list;
-    }
+		return getRegistry().axes;
+	}
+
+	/**
+	 * @return the loaded slicer with this url, or null
+	 */
+	public Slicer getSlicer(String url) {
+		return getRegistry().byUrl.get(url);
+	}
+
+	/**
+	 * Checking which slicers are loaded can construct objects and probe classes, so that is only
+	 * done again once a plugin or slicer was added.
+	 */
+	private Registry getRegistry() {
+		Jenkins jenkins = Jenkins.getInstance();
+		ExtensionList<Slicer> extensions = jenkins.getExtensionList(Slicer.class);
+		int plugins = jenkins.getPluginManager().getPlugins().size();
+		Registry current = registry;
+		if (current == null || !current.isFor(extensions, plugins)) {
+			current = new Registry(extensions, plugins);
+			registry = current;
+		}
+		return current;
+	}
+
+	private static final class Registry {
+		private final ExtensionList<Slicer> extensions;
+		private final int extensionCount;
+		private final int pluginCount;
+		private final List<Slicer> axes;
+		private final Map<String, Slicer> byUrl = new HashMap<String, Slicer>();
+
+		@SuppressWarnings("unchecked")
+		Registry(ExtensionList<Slicer> extensions, int pluginCount) {
+			this.extensions = extensions;
+			this.pluginCount = pluginCount;
+			List<Slicer> list = new ArrayList<Slicer>();
+			int count = 0;
+			long start = System.nanoTime();
+			for (Slicer slicer: extensions) {
+				count++;
+				// loaders build their delegate here, on first use rather than at startup
+				long t0 = System.nanoTime();
+				if (slicer.isLoaded()) {
+					if (slicer instanceof SlicerLoader) {
+						slicer = ((SlicerLoader) slicer).getDelegate();
+					}
+					long nanos = System.nanoTime() - t0;
+					SlicerMetrics.of(slicer).initialized(nanos);
+					list.add(slicer);
+					LOGGER.fine("Loaded: " + slicer.getClass() + " in " + nanos / 1000 + "us");
+				} else {
+					LOGGER.warning("NOT Loaded: " + slicer.getClass());
+				}
+			}
+			Collections.sort(list);
+			for (Slicer slicer: list) {
+				byUrl.put(slicer.getUrl(), slicer);
+			}
+			this.extensionCount = count;
+			LOGGER.info("Initialized " + list.size() + " of " + count + " slicers in "
+					+ (System.nanoTime() - start) / 1000000 + "ms");
+			this.axes = Collections.unmodifiableList(list);
+		}
+
+		boolean isFor(ExtensionList<Slicer> extensions, int pluginCount) {
+			return this.extensions == extensions && extensionCount == extensions.size() && this.pluginCount == pluginCount;
+		}
+	}
     
     public Collection<String> getViews() {
     	Collection<View> views = Jenkins.getInstance().getViews();
@@ -91,52 +172,152 @@ public class ConfigurationSlicing extends ManagementLink {
     	}
     }
 
-    public Object getDynamic(String token, StaplerRequest req, StaplerResponse rsp) {
+    <T, I> ApplyTask<T, I> startApply(Slicer<T, I> slicer, T slice, List<I> items) {
+        ApplyTask<T, I> task;
+        synchronized (applies) {
+            task = new ApplyTask<T, I>(nextApplyId++, this, slicer, slice, items);
+            applies.put(task.getId(), task);
+            for (Iterator<ApplyTask<?, ?>> it = applies.values().iterator(); applies.size() > MAX_APPLIES && it.hasNext();) {
+                if (!it.next().isRunning()) {
+                    it.remove();
+                }
+            }
+        }
+        SliceWorkerPool.submitApply(task);
+        return task;
+    }
+
+    ApplyTask<?, ?> getApply(int id) {
+        synchronized (applies) {
+            return applies.get(id);
+        }
+    }
+
+    /**
+     * Works out what the slice would change, without changing anything.
+     */
+    <T, I> SlicePlan<T, I> createPlan(Slicer<T, I> slicer, T original, T slice) {
+        long start = System.currentTimeMillis();
+        List<SlicePlan.Entry<I>> entries = SliceWorkerPool.plan(slicer, original, slice, slicer.getWorkDomain());
+        long duration = System.currentTimeMillis() - start;
+        LOGGER.fine("Planned " + slicer.getUrl() + ": " + entries.size() + " items would change, took " + duration + "ms");
+        SlicePlan<T, I> plan;
+        synchronized (plans) {
+            plan = new SlicePlan<T, I>(nextPlanId++, this, slicer, slice, entries, duration);
+            plans.put(plan.getId(), plan);
+            for (Iterator<SlicePlan<?, ?>> it = plans.values().iterator(); plans.size() > MAX_PLANS && it.hasNext();) {
+                it.next();
+                it.remove();
+            }
+        }
+        return plan;
+    }
+
+    SlicePlan<?, ?> getPlan(int id) {
+        synchronized (plans) {
+            return plans.get(id);
+        }
+    }
+
+    public MetricsPage getMetrics() {
         Jenkins.getInstance().checkPermission(Hudson.ADMINISTER);
-        
-        for(Slicer s : getAxes()) {
-            if(s.getUrl().equals(token)) {
-            	return new SliceExecutor(s, null);
+        return new MetricsPage(this);
+    }
+
+    public SliceMatrix getMatrix() {
+        Jenkins.getInstance().checkPermission(Hudson.ADMINISTER);
+        return new SliceMatrix(this, Stapler.getCurrentRequest());
+    }
+
+    /**
+     * Streams every slicer's values as CSV, or JSON lines with <code>format=json</code>.
+     */
+    public void doExport(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Jenkins.getInstance().checkPermission(Hudson.ADMINISTER);
+        SliceExport.fromRequest(this, req).write(rsp);
+    }
+
+    /**
+     * Applies a CSV in the format of {@link #doExport}, uploaded as the <code>file</code> field of a
+     * multipart form or posted as the request body, and answers with a JSON summary.
+     */
+    @RequirePOST
+    public void doImport(StaplerRequest req, StaplerResponse rsp) throws IOException, ServletException {
+        Jenkins.getInstance().checkPermission(Hudson.ADMINISTER);
+        Reader in;
+        String contentType = req.getContentType();
+        if (contentType != null && contentType.startsWith("multipart/")) {
+            FileItem file = req.getFileItem("file");
+            if (file == null) {
+                rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, "no file uploaded");
+                return;
             }
+            in = new InputStreamReader(file.getInputStream(), "UTF-8");
+        } else {
+            in = req.getReader();
         }
-        return null;
+        SliceImport slicesImport = new SliceImport(this);
+        try {
+            slicesImport.read(in);
+        } finally {
+            in.close();
+        }
+        SliceApi.writeSummary(rsp, slicesImport.getRecords(), slicesImport.getJobs(), slicesImport.getChanged(),
+                slicesImport.getFailed(), slicesImport.getErrors());
+    }
+
+    public Object getDynamic(String token, StaplerRequest req, StaplerResponse rsp) {
+        Jenkins.getInstance().checkPermission(Hudson.ADMINISTER);
+        
+        Slicer s = getSlicer(token);
+        return s == null ? null : new SliceExecutor(s, null);
     }
 
     public class SliceExecutor<T extends Slice,I> {
         Slicer<T,I> slicer;
         List<I> worklist;
-        List<I> changed;
         T slice;
         View view;
+        SliceWindow window;
         public SliceExecutor(Slicer<T, I> s, View view) {
             this.slicer = s;
             this.view = view;
-            execute();
         }
         
+        /**
+         * Only run when the slice is needed, so that routing to an apply page does not accumulate.
+         */
         private void execute() {
-            T accumulator = slicer.getInitialAccumulator();
             worklist = slicer.getWorkDomain();
-            Collection<TopLevelItem> items = null;
-            if (view != null) {
-            	items = view.getItems();
+            if (view == null) {
+            	slice = SliceSnapshots.getSlice(slicer);
+            	return;
             }
+            Set<TopLevelItem> items = new HashSet<TopLevelItem>(view.getItems());
+            List<I> domain = new ArrayList<I>();
             for(I item : worklist) {
-            	if (items == null || items.contains(item)) {
-            		accumulator = slicer.accumulate(accumulator, item);
+            	if (items.contains(item)) {
+            		domain.add(item);
             	}
             }
-            slice= accumulator;
+            // admins often open the same view at once, share the accumulation rather than repeat it
+            slice = SliceWorkerPool.accumulateShared(slicer, "view/" + view.getViewUrl(), domain);
         }
         
-        private List<I> transform(T newslice) {
-            List<I> ret = new ArrayList<I>();
-            worklist = slicer.getWorkDomain();
-            for(I item : worklist) {
-                if(slicer.transform(newslice, item))
-                    ret.add(item);
+        /**
+         * Only items whose values differ from the original slice need to be transformed.
+         */
+        private List<I> getDirtyItems(T original, T newslice) {
+            List<I> domain = slicer.getWorkDomain();
+            List<I> dirty = new ArrayList<I>();
+            AbstractSlicer<T, I> abstractSlicer = AbstractSlicer.of(slicer);
+            for (I item: domain) {
+            	if (abstractSlicer.isChanged(original, newslice, item)) {
+            		dirty.add(item);
+            	}
             }
-            return ret;
+            LOGGER.fine(slicer.getUrl() + ": " + dirty.size() + " of " + domain.size() + " items differ from the original slice");
+            return dirty;
         }
         
         public ConfigurationSlicing getParent() {
@@ -144,6 +325,9 @@ public class ConfigurationSlicing extends ManagementLink {
         }
         
         public T getSlice() {
+            if (slice == null) {
+            	execute();
+            }
             return slice;
         }
         
@@ -151,8 +335,44 @@ public class ConfigurationSlicing extends ManagementLink {
 			return slicer;
 		}
         
-        public List<I> getChanged() {
-            return changed;
+        /**
+         * Routes <code>apply/&lt;id&gt;</code> to a running or recently finished apply of this slicer.
+         */
+        public ApplyTask<?, ?> getApply(String id) {
+            ApplyTask<?, ?> task;
+            try {
+            	task = ConfigurationSlicing.this.getApply(Integer.parseInt(id));
+            } catch (NumberFormatException e) {
+            	return null;
+            }
+            if (task == null || !task.getSlicer().getUrl().equals(slicer.getUrl())) {
+            	return null;
+            }
+            return task;
+        }
+        /**
+         * Routes <code>plan/&lt;id&gt;</code> to a preview of this slicer.
+         */
+        public SlicePlan<?, ?> getPlan(String id) {
+            SlicePlan<?, ?> plan;
+            try {
+            	plan = ConfigurationSlicing.this.getPlan(Integer.parseInt(id));
+            } catch (NumberFormatException e) {
+            	return null;
+            }
+            if (plan == null || !plan.getSlicer().getUrl().equals(slicer.getUrl())) {
+            	return null;
+            }
+            return plan;
+        }
+        public View getView() {
+            return view;
+        }
+        /**
+         * Routes <code>api/json</code> to the read API of this slicer.
+         */
+        public SliceApi<T, I> getApi() {
+            return new SliceApi<T, I>(this);
         }
         public String getViewDisplayPart() {
         	if (view == null) {
@@ -169,32 +389,51 @@ public class ConfigurationSlicing extends ManagementLink {
         		return part;
         	}
         }
+        /**
+         * @return the page and filters requested for this slice, read from the query string
+         */
+        public SliceWindow getWindow() {
+            if (window == null) {
+            	window = SliceWindow.fromRequest(Stapler.getCurrentRequest());
+            }
+            return window;
+        }
+        public String getPageUrl(int page) {
+            String url = "?" + getWindow().getQuery(page);
+            StaplerRequest req = Stapler.getCurrentRequest();
+            String viewName = req == null ? null : req.getParameter("view");
+            if (viewName != null) {
+            	url += "&view=" + SliceWindow.encode(viewName);
+            }
+            return url;
+        }
         public List<I> getWorklist() {
+            if (slice == null) {
+            	execute();
+            }
             return worklist;
         }
         
+        /**
+         * Starts applying the submitted slice in the background and sends the browser to its progress page,
+         * or, if only a preview was asked for, shows what would change.
+         */
         public void doSliceconfigSubmit( StaplerRequest req, StaplerResponse rsp ) throws IOException, ServletException {
-            String pathInfo = req.getPathInfo();
             try {
-                T newslice = (T)slice.newInstance(req, req.getSubmittedForm());
-                transform(newslice);
-                this.slice = newslice;
-                // since we're not actually accumulating changes, let's not forward here anymore
-//                rsp.forward(this, "changesummary", req);
-                String redirect = getRedirectPath(pathInfo);
-                rsp.sendRedirect2(redirect);
+                T original = getSlice();
+                JSONObject form = req.getSubmittedForm();
+                T newslice = (T)original.newInstance(req, form);
+                if (form.optBoolean("planOnly")) {
+                	SlicePlan<T, I> plan = createPlan(slicer, original, newslice);
+                	rsp.sendRedirect2(req.getContextPath() + "/" + getUrlName() + "/" + slicer.getUrl() + "/plan/" + plan.getId() + "/");
+                	return;
+                }
+                ApplyTask<T, I> task = startApply(slicer, newslice, getDirtyItems(original, newslice));
+                rsp.sendRedirect2(req.getContextPath() + "/" + getUrlName() + "/" + slicer.getUrl() + "/apply/" + task.getId() + "/");
             } catch (FormException e) {
                 e.printStackTrace();
             }
         }
-        private String getRedirectPath(String pathInfo) {
-        	String urlPart = "slicing/" + slicer.getUrl() + "/view/"; 
-        	if (pathInfo.contains(urlPart)) {
-        		return "../..";
-        	} else {
-        		return "..";
-        	}
-        }
         public Object getDynamic(String token, StaplerRequest req, StaplerResponse rsp) {
             Jenkins.getInstance().checkPermission(Hudson.ADMINISTER);
             String viewName = req.getParameter("view");
@@ -0,0 +1,81 @@
+package configurationslicing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV one record at a time, the way {@link SliceExport} writes it: fields are separated by
+ * commas and may be quoted, in which case they can hold commas, line breaks and doubled quotes.
+ */
+class CsvReader {
+
+    private final Reader in;
+    private int line = 1;
+    private int recordLine;
+
+    CsvReader(Reader in) {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in);
+    }
+
+    /**
+     * @return the fields of the next record, or null at the end of the input
+     * @throws IllegalArgumentException if a quoted field is never closed
+     */
+    List<String> next() throws IOException {
+        int c = in.read();
+        if (c < 0) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (c < 0) {
+                if (quoted) {
+                    throw new IllegalArgumentException("line " + recordLine + ": quoted field is not closed");
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    c = in.read();
+                    if (c != '"') {
+                        // the closing quote, look at what follows it as usual
+                        quoted = false;
+                        continue;
+                    }
+                    field.append('"');
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                line++;
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+
+    /**
+     * @return the line the last record started on
+     */
+    int getLine() {
+        return recordLine;
+    }
+}
@@ -0,0 +1,230 @@
+package configurationslicing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link SliceIndex} that keeps, per value, the ids of its names from its own {@link NameDictionary}
+ * in a sorted int array.  Per item it keeps the ids of the values its names were added to, so that
+ * removing an item only visits those values.
+ */
+final class IdSliceIndex extends SliceIndex {
+
+    private final NameDictionary dictionary;
+    private final Map<String, IdSet> values = new HashMap<String, IdSet>();
+    // the sets by value id; null once a set was emptied, value ids are not reused
+    private final List<IdSet> valueIds = new ArrayList<IdSet>();
+    // item id to the ids of the values holding one of its names
+    private int[][] itemValues = new int[16][];
+
+    IdSliceIndex() {
+        this(new NameDictionary());
+    }
+
+    IdSliceIndex(NameDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    void add(String value, String name) {
+        add(value, dictionary.id(name));
+    }
+
+    private void add(String value, int id) {
+        IdSet ids = values.get(value);
+        if (ids == null) {
+            ids = new IdSet(value, valueIds.size());
+            values.put(value, ids);
+            valueIds.add(ids);
+        }
+        ids.add(id);
+        addItemValue(dictionary.itemId(id), ids.valueId);
+    }
+
+    private void addItemValue(int itemId, int valueId) {
+        if (itemId >= itemValues.length) {
+            itemValues = Arrays.copyOf(itemValues, Math.max(itemId + 1, itemValues.length * 2));
+        }
+        int[] list = itemValues[itemId];
+        if (list == null) {
+            itemValues[itemId] = new int[] { valueId };
+            return;
+        }
+        for (int v: list) {
+            if (v == valueId) {
+                return;
+            }
+        }
+        list = Arrays.copyOf(list, list.length + 1);
+        list[list.length - 1] = valueId;
+        itemValues[itemId] = list;
+    }
+
+    @Override
+    void removeItem(String itemName) {
+        int itemId = dictionary.find(itemName);
+        if (itemId < 0 || itemId >= itemValues.length || itemValues[itemId] == null) {
+            return;
+        }
+        for (int valueId: itemValues[itemId]) {
+            IdSet ids = valueIds.get(valueId);
+            if (ids != null && ids.removeItem(itemId, dictionary) && ids.isEmpty()) {
+                values.remove(ids.value);
+                valueIds.set(valueId, null);
+            }
+        }
+        itemValues[itemId] = null;
+    }
+
+    @Override
+    void addAll(SliceIndex index) {
+        if (!(index instanceof IdSliceIndex)) {
+            addAllNames(index);
+            return;
+        }
+        IdSliceIndex other = (IdSliceIndex) index;
+        // ids of the other dictionary in this one, numbered when first needed
+        int[] translated = null;
+        if (other.dictionary != dictionary) {
+            translated = new int[other.dictionary.size()];
+            Arrays.fill(translated, -1);
+        }
+        for (IdSet ids: other.values.values()) {
+            for (int id: ids.toArray()) {
+                if (translated != null) {
+                    if (id >= translated.length) {
+                        // numbered after we looked at the size
+                        translated = grow(translated, id + 1);
+                    }
+                    if (translated[id] < 0) {
+                        translated[id] = dictionary.id(other.dictionary.name(id));
+                    }
+                    id = translated[id];
+                }
+                add(ids.value, id);
+            }
+        }
+    }
+
+    private static int[] grow(int[] array, int length) {
+        int[] grown = Arrays.copyOf(array, length);
+        Arrays.fill(grown, array.length, length, -1);
+        return grown;
+    }
+
+    @Override
+    List<String> getValues() {
+        return new ArrayList<String>(values.keySet());
+    }
+
+    @Override
+    List<String> getNames(String value) {
+        IdSet ids = values.get(value);
+        if (ids == null) {
+            return new ArrayList<String>();
+        }
+        int[] copy = ids.toArray();
+        List<String> names = new ArrayList<String>(copy.length);
+        for (int id: copy) {
+            names.add(dictionary.name(id));
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Counts the values, id arrays and the dictionary, which only this index uses.
+     */
+    @Override
+    long getEstimatedSize() {
+        long size = 2 * MAP_SIZE + LIST_SIZE + 4L * valueIds.size() + 16 + 4L * itemValues.length;
+        for (IdSet ids: values.values()) {
+            size += ENTRY_SIZE + getEstimatedSize(ids.value) + ids.getEstimatedSize();
+        }
+        for (int[] list: itemValues) {
+            if (list != null) {
+                size += 16 + 4L * list.length;
+            }
+        }
+        return size + dictionary.getEstimatedSize();
+    }
+
+    /**
+     * Name ids of one value, appended and only sorted when next read, like {@link SortedNameSet}.
+     */
+    private static final class IdSet {
+        private final String value;
+        private final int valueId;
+        private int[] ids;
+        private int size;
+        private int sorted;
+
+        IdSet(String value, int valueId) {
+            this.value = value;
+            this.valueId = valueId;
+            this.ids = new int[2];
+        }
+
+        synchronized void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            ids[size++] = id;
+        }
+
+        /**
+         * @return true if some id of the item was removed
+         */
+        synchronized boolean removeItem(int itemId, NameDictionary dictionary) {
+            int kept = 0;
+            int keptSorted = 0;
+            for (int i = 0; i < size; i++) {
+                if (dictionary.itemId(ids[i]) != itemId) {
+                    ids[kept++] = ids[i];
+                    if (i < sorted) {
+                        keptSorted++;
+                    }
+                }
+            }
+            boolean removed = kept < size;
+            size = kept;
+            sorted = keptSorted;
+            return removed;
+        }
+
+        synchronized boolean isEmpty() {
+            return size == 0;
+        }
+
+        synchronized int[] toArray() {
+            compact();
+            return Arrays.copyOf(ids, size);
+        }
+
+        synchronized long getEstimatedSize() {
+            return 32 + 16 + 4L * ids.length;
+        }
+
+        private void compact() {
+            if (sorted == size) {
+                return;
+            }
+            Arrays.sort(ids, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || ids[i] != ids[unique - 1]) {
+                    ids[unique++] = ids[i];
+                }
+            }
+            size = unique;
+            sorted = size;
+            if (ids.length - size > size / 4 + 4) {
+                ids = Arrays.copyOf(ids, size);
+            }
+        }
+    }
+}
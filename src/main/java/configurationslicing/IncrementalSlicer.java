@@ -0,0 +1,20 @@
+package configurationslicing;
+
+/**
+ * Base class for slicers whose slices can be merged and have items taken back out, so that
+ * accumulation can be split across threads and a snapshot kept up to date item by item.
+ */
+public abstract class IncrementalSlicer<T, I> extends AbstractSlicer<T, I> {
+
+    /**
+     * Merges two accumulators that were built from disjoint chunks of the work domain,
+     * so that accumulation can be split across threads.
+     */
+    public abstract T combine(T t1, T t2);
+
+    /**
+     * The inverse of accumulate: takes everything the item contributed back out of the
+     * accumulator, so that a changed item can be accumulated again without starting over.
+     */
+    public abstract T remove(T t, I i);
+}
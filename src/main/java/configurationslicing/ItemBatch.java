@@ -0,0 +1,162 @@
+package configurationslicing;
+
+import hudson.BulkChange;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Items;
+import hudson.model.Saveable;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs a transform inside a {@link BulkChange}, so that each item is written to disk
+ * at most once no matter how many times the spec modifies it, and not at all if it was not changed.
+ *
+ * Specs call {@link #saveRequested()} wherever the item would otherwise have been persisted,
+ * which is what lets us count the saves that batching avoided.
+ *
+ * Some specs modify the item and still report no change, e.g. when a later part of the value
+ * is rejected.  So an item that reports no change is still saved if its configuration differs
+ * from its <code>config.xml</code>.
+ */
+public class ItemBatch {
+
+    private static final Logger LOGGER = Logger.getLogger(ItemBatch.class.getName());
+
+    private static final AtomicLong ITEMS_COMMITTED = new AtomicLong();
+    private static final AtomicLong SAVES_AVOIDED = new AtomicLong();
+
+    private static final ThreadLocal<int[]> SAVES_REQUESTED = new ThreadLocal<int[]>();
+
+    // private constructor since we don't expect this class to be instantiated
+    private ItemBatch() {
+    }
+
+    /**
+     * A modification of a single item.
+     */
+    public interface Change {
+        /**
+         * @return true if the item was changed
+         */
+        boolean apply();
+    }
+
+    /**
+     * Transforms the item and then saves it once.  If the transform throws, nothing is saved.
+     */
+    public static <T, I> boolean transform(Slicer<T, I> slicer, T slice, I item) throws IOException {
+        return transform(slicer, slice, item, new boolean[1]);
+    }
+
+    /**
+     * @param saved set to true if the item was written
+     */
+    static <T, I> boolean transform(final Slicer<T, I> slicer, final T slice, final I item, boolean[] saved) throws IOException {
+        return run(item, new Change() {
+            public boolean apply() {
+                return slicer.transform(slice, item);
+            }
+        }, saved);
+    }
+
+    /**
+     * Applies the change and then saves the item once, if the change reported a modification or
+     * the spec requested a save.  If the change throws, nothing is saved.
+     */
+    public static boolean run(Object item, Change change) throws IOException {
+        return run(item, change, new boolean[1]);
+    }
+
+    /**
+     * @param saved set to true if the item was written
+     */
+    static boolean run(Object item, Change change, boolean[] saved) throws IOException {
+        if (!(item instanceof Saveable)) {
+            return change.apply();
+        }
+        int[] requested = new int[1];
+        int[] outer = SAVES_REQUESTED.get();
+        SAVES_REQUESTED.set(requested);
+        BulkChange bc = new BulkChange((Saveable) item);
+        try {
+            boolean changed = change.apply();
+            if (!changed && requested[0] == 0 && !differsFromConfigFile(item)) {
+                // BulkChange.commit() always saves, so leave the untouched item alone
+                return false;
+            }
+            SliceEvents.Span span = SliceEvents.begin(SliceEvents.SAVE, null, item);
+            String outcome = "failed";
+            try {
+                bc.commit();
+                outcome = "saved";
+            } finally {
+                span.end(outcome);
+            }
+            saved[0] = true;
+            ITEMS_COMMITTED.incrementAndGet();
+            if (requested[0] > 1) {
+                SAVES_AVOIDED.addAndGet(requested[0] - 1);
+            }
+            return changed;
+        } finally {
+            bc.abort();
+            SAVES_REQUESTED.set(outer);
+        }
+    }
+
+    /**
+     * Whether the item in memory no longer matches its <code>config.xml</code>.  Saveables that are not
+     * items cannot be compared, for those only the spec's answer and {@link #saveRequested()} count.
+     */
+    static boolean differsFromConfigFile(Object item) {
+        if (!(item instanceof Item)) {
+            return false;
+        }
+        XmlFile file = Items.getConfigFile((Item) item);
+        if (!file.exists()) {
+            return true;
+        }
+        try {
+            return !withoutDeclaration(file.asString()).equals(withoutDeclaration(file.getXStream().toXML(item)));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not read " + file + ", saving to be safe", e);
+            return true;
+        }
+    }
+
+    private static String withoutDeclaration(String xml) {
+        xml = xml.trim();
+        if (xml.startsWith("<?xml")) {
+            xml = xml.substring(xml.indexOf("?>") + 2).trim();
+        }
+        return xml;
+    }
+
+    /**
+     * Records that a spec modified the item in a way that would have persisted it on its own.
+     */
+    public static void saveRequested() {
+        int[] requested = SAVES_REQUESTED.get();
+        if (requested != null) {
+            requested[0]++;
+        }
+    }
+
+    /**
+     * @return how many items were written through a batch since startup
+     */
+    public static long getItemsCommitted() {
+        return ITEMS_COMMITTED.get();
+    }
+
+    /**
+     * @return how many intermediate config.xml writes were folded into a single one since startup
+     */
+    public static long getSavesAvoided() {
+        return SAVES_AVOIDED.get();
+    }
+}
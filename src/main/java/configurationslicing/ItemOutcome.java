@@ -0,0 +1,52 @@
+package configurationslicing;
+
+/**
+ * The result of transforming a single item of a slicer's work domain.
+ */
+public class ItemOutcome<I> {
+
+    public enum Status {
+        CHANGED, UNCHANGED, FAILED
+    }
+
+    private final I item;
+    private final Status status;
+    private final Throwable failure;
+
+    private ItemOutcome(I item, Status status, Throwable failure) {
+        this.item = item;
+        this.status = status;
+        this.failure = failure;
+    }
+
+    public static <I> ItemOutcome<I> changed(I item, boolean changed) {
+        return new ItemOutcome<I>(item, changed ? Status.CHANGED : Status.UNCHANGED, null);
+    }
+
+    public static <I> ItemOutcome<I> failed(I item, Throwable failure) {
+        return new ItemOutcome<I>(item, Status.FAILED, failure);
+    }
+
+    public I getItem() {
+        return item;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isChanged() {
+        return status == Status.CHANGED;
+    }
+
+    public boolean isFailed() {
+        return status == Status.FAILED;
+    }
+
+    /**
+     * @return the exception that made this item fail, or null
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,63 @@
+package configurationslicing;
+
+import java.util.regex.Pattern;
+
+/**
+ * Selects items by pattern rather than by name, in the item names of a submitted slice.
+ * A line between slashes like <code>/.*-nightly$/</code> is a regular expression; a line with
+ * <code>*</code> or <code>?</code> is a glob, where <code>*</code> and <code>?</code> stay within
+ * one folder and <code>**</code> crosses folders, as in <code>team-a/**</code>.
+ * Both have to match the whole full name of the item.
+ *
+ * Jenkins does not allow <code>*</code> or <code>?</code> in item names, but folder full names contain
+ * slashes and other work domains may name their items freely, so a selector line that is also the
+ * name of an item is rejected rather than guessed at.
+ */
+public class ItemSelector {
+
+    // private constructor since we don't expect this class to be instantiated
+    private ItemSelector() {
+    }
+
+    public static boolean isSelector(String line) {
+        return isRegex(line) || line.indexOf('*') >= 0 || line.indexOf('?') >= 0;
+    }
+
+    private static boolean isRegex(String line) {
+        return line.length() > 2 && line.startsWith("/") && line.endsWith("/");
+    }
+
+    /**
+     * @throws IllegalArgumentException if the regular expression is invalid
+     */
+    public static Pattern compile(String selector) {
+        if (isRegex(selector)) {
+            return Pattern.compile(selector.substring(1, selector.length() - 1));
+        }
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < selector.length(); i++) {
+            char c = selector.charAt(i);
+            if (c != '*' && c != '?') {
+                literal.append(c);
+                continue;
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+                literal.setLength(0);
+            }
+            if (c == '?') {
+                regex.append("[^/]");
+            } else if (i + 1 < selector.length() && selector.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else {
+                regex.append("[^/]*");
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,132 @@
+package configurationslicing;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Shows {@link SlicerMetrics} at <code>slicing/metrics</code>, as JSON at <code>slicing/metrics/json</code>
+ * and in the Prometheus text format at <code>slicing/metrics/prometheus</code>.
+ */
+public class MetricsPage {
+
+    private final ConfigurationSlicing parent;
+
+    public MetricsPage(ConfigurationSlicing parent) {
+        this.parent = parent;
+    }
+
+    public ConfigurationSlicing getParent() {
+        return parent;
+    }
+
+    public List<SlicerMetrics> getMetrics() {
+        return SlicerMetrics.all();
+    }
+
+    public long getSavesAvoided() {
+        return ItemBatch.getSavesAvoided();
+    }
+
+    public void doJson(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        JSONArray slicers = new JSONArray();
+        for (SlicerMetrics m: getMetrics()) {
+            JSONObject o = new JSONObject();
+            o.put("url", m.getUrl());
+            o.put("initMillis", m.getInitMillis());
+            o.put("snapshotKilobytes", m.getSnapshotKilobytes());
+            o.put("accumulations", m.getAccumulations());
+            o.put("accumulateMillis", m.getAccumulateMillis());
+            o.put("accumulateMaxMillis", m.getAccumulateMaxMillis());
+            o.put("itemsScanned", m.getItemsScanned());
+            o.put("getValuesMillis", m.getGetValuesMillis());
+            o.put("applies", m.getApplies());
+            o.put("applyMillis", m.getApplyMillis());
+            o.put("applyMaxMillis", m.getApplyMaxMillis());
+            o.put("itemsTransformed", m.getItemsTransformed());
+            o.put("setValuesMillis", m.getSetValuesMillis());
+            o.put("itemsChanged", m.getItemsChanged());
+            o.put("saves", m.getSaves());
+            o.put("failures", m.getFailures());
+            slicers.add(o);
+        }
+        JSONObject json = new JSONObject();
+        json.put("savesAvoided", getSavesAvoided());
+        json.put("slicers", slicers);
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(json.toString());
+    }
+
+    public void doPrometheus(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        rsp.setContentType("text/plain; version=0.0.4;charset=UTF-8");
+        PrintWriter w = rsp.getWriter();
+        List<SlicerMetrics> metrics = getMetrics();
+        w.println("# HELP configurationslicing_init_seconds Time taken to check that the slicer can be used");
+        w.println("# TYPE configurationslicing_init_seconds gauge");
+        for (SlicerMetrics m: metrics) {
+            sample(w, "init_seconds", m, m.getInitMillis() / 1000.0);
+        }
+        w.println("# HELP configurationslicing_snapshot_bytes Estimated heap held by the slicer's snapshot when last built");
+        w.println("# TYPE configurationslicing_snapshot_bytes gauge");
+        for (SlicerMetrics m: metrics) {
+            if (m.getSnapshotKilobytes() >= 0) {
+                sample(w, "snapshot_bytes", m, m.getSnapshotKilobytes() * 1024);
+            }
+        }
+        counter(w, "accumulations_total", "Slice accumulations");
+        for (SlicerMetrics m: metrics) {
+            sample(w, "accumulations_total", m, m.getAccumulations());
+        }
+        counter(w, "accumulate_seconds_total", "Time spent accumulating slices");
+        for (SlicerMetrics m: metrics) {
+            sample(w, "accumulate_seconds_total", m, m.getAccumulateMillis() / 1000.0);
+        }
+        counter(w, "items_scanned_total", "Items read while accumulating");
+        for (SlicerMetrics m: metrics) {
+            sample(w, "items_scanned_total", m, m.getItemsScanned());
+        }
+        counter(w, "applies_total", "Applies of submitted slices or records");
+        for (SlicerMetrics m: metrics) {
+            sample(w, "applies_total", m, m.getApplies());
+        }
+        counter(w, "apply_seconds_total", "Time spent applying");
+        for (SlicerMetrics m: metrics) {
+            sample(w, "apply_seconds_total", m, m.getApplyMillis() / 1000.0);
+        }
+        counter(w, "items_transformed_total", "Items a slice was applied to");
+        for (SlicerMetrics m: metrics) {
+            sample(w, "items_transformed_total", m, m.getItemsTransformed());
+        }
+        counter(w, "items_changed_total", "Items that were changed");
+        for (SlicerMetrics m: metrics) {
+            sample(w, "items_changed_total", m, m.getItemsChanged());
+        }
+        counter(w, "saves_total", "Items saved");
+        for (SlicerMetrics m: metrics) {
+            sample(w, "saves_total", m, m.getSaves());
+        }
+        counter(w, "failures_total", "Items that could not be changed or saved");
+        for (SlicerMetrics m: metrics) {
+            sample(w, "failures_total", m, m.getFailures());
+        }
+        counter(w, "saves_avoided_total", "Intermediate saves folded into one by batching");
+        w.println("configurationslicing_saves_avoided_total " + getSavesAvoided());
+    }
+
+    private static void counter(PrintWriter w, String name, String help) {
+        w.println("# HELP configurationslicing_" + name + " " + help);
+        w.println("# TYPE configurationslicing_" + name + " counter");
+    }
+
+    private static void sample(PrintWriter w, String name, SlicerMetrics m, Object value) {
+        // slicer urls are plain words, but escape them as the format requires anyway
+        String label = m.getUrl().replace("\\", "\\\\").replace("\"", "\\\"");
+        w.println("configurationslicing_" + name + "{slicer=\"" + label + "\"} " + value);
+    }
+}
@@ -0,0 +1,77 @@
+package configurationslicing;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Numbers item names, so that a slice can refer to them by int id and keep each name only once.
+ * Each {@link IdSliceIndex} has its own dictionary, which goes away with the slice: names of deleted
+ * or renamed items, and whatever names a user submitted, are not kept for the life of Jenkins.
+ */
+final class NameDictionary {
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+    // replaced when growing; an id is only handed out after its slots were written
+    private volatile String[] names = new String[256];
+    // the id of the item each name belongs to, which differs from its own for indexed names
+    private volatile int[] itemIds = new int[256];
+    private int size;
+
+    int id(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            String itemName = SliceIndex.getItemName(name);
+            int itemId = itemName.equals(name) ? size : id(itemName);
+            int n = size;
+            if (n == names.length) {
+                names = Arrays.copyOf(names, n * 2);
+                itemIds = Arrays.copyOf(itemIds, n * 2);
+            }
+            names[n] = name;
+            itemIds[n] = itemId;
+            size = n + 1;
+            ids.put(name, n);
+            return n;
+        }
+    }
+
+    /**
+     * @return the id of this name, or -1 if it was never numbered
+     */
+    int find(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    int itemId(int id) {
+        return itemIds[id];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return a rough estimate in bytes of the names, their ids and the arrays holding them
+     */
+    synchronized long getEstimatedSize() {
+        long size = SliceIndex.MAP_SIZE + (16 + 4L * names.length) + (16 + 4L * itemIds.length);
+        for (int i = 0; i < this.size; i++) {
+            // the map entry, the boxed id and the name
+            size += SliceIndex.ENTRY_SIZE + 16 + SliceIndex.getEstimatedSize(names[i]);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,123 @@
+package configurationslicing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The default {@link SliceIndex}: a {@link SortedNameSet} per value, and per item the sets
+ * it was added to, so it can be removed again without visiting every value.
+ */
+final class NameSetIndex extends SliceIndex {
+
+    // each set also holds the one copy of its value that this index keeps
+    private final Map<String, SortedNameSet> valueToNames = new HashMap<String, SortedNameSet>();
+    // item name to the set holding its names, or an array of sets if it has several values;
+    // the names themselves are found again by item name when it is removed
+    private final Map<String, Object> itemSets = new HashMap<String, Object>();
+
+    @Override
+    void add(String value, String name) {
+        SortedNameSet names = valueToNames.get(value);
+        if (names == null) {
+            names = new SortedNameSet(value);
+            valueToNames.put(value, names);
+        }
+        names.add(name);
+        addItemSet(getItemName(name), names);
+    }
+
+    private void addItemSet(String itemName, SortedNameSet names) {
+        Object sets = itemSets.get(itemName);
+        if (sets == null) {
+            itemSets.put(itemName, names);
+        } else if (sets instanceof SortedNameSet) {
+            if (sets != names) {
+                itemSets.put(itemName, new SortedNameSet[] { (SortedNameSet) sets, names });
+            }
+        } else {
+            SortedNameSet[] array = (SortedNameSet[]) sets;
+            for (SortedNameSet set: array) {
+                if (set == names) {
+                    return;
+                }
+            }
+            array = Arrays.copyOf(array, array.length + 1);
+            array[array.length - 1] = names;
+            itemSets.put(itemName, array);
+        }
+    }
+
+    @Override
+    void removeItem(String itemName) {
+        Object sets = itemSets.remove(itemName);
+        if (sets == null) {
+            return;
+        }
+        SortedNameSet[] array = sets instanceof SortedNameSet
+                ? new SortedNameSet[] { (SortedNameSet) sets } : (SortedNameSet[]) sets;
+        for (SortedNameSet names: array) {
+            if (names.removeItem(itemName) && names.isEmpty()) {
+                valueToNames.remove(names.getValue());
+            }
+        }
+    }
+
+    @Override
+    void addAll(SliceIndex index) {
+        if (!(index instanceof NameSetIndex)) {
+            addAllNames(index);
+            return;
+        }
+        NameSetIndex other = (NameSetIndex) index;
+        for (Map.Entry<String, SortedNameSet> entry: other.valueToNames.entrySet()) {
+            SortedNameSet names = valueToNames.get(entry.getKey());
+            if (names == null) {
+                valueToNames.put(entry.getKey(), new SortedNameSet(entry.getValue()));
+            } else {
+                names.addAll(entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Object> entry: other.itemSets.entrySet()) {
+            Object sets = entry.getValue();
+            SortedNameSet[] array = sets instanceof SortedNameSet
+                    ? new SortedNameSet[] { (SortedNameSet) sets } : (SortedNameSet[]) sets;
+            for (SortedNameSet names: array) {
+                // point at this index's set for the value, not the other index's
+                addItemSet(entry.getKey(), valueToNames.get(names.getValue()));
+            }
+        }
+    }
+
+    @Override
+    List<String> getValues() {
+        return new ArrayList<String>(valueToNames.keySet());
+    }
+
+    @Override
+    List<String> getNames(String value) {
+        SortedNameSet names = valueToNames.get(value);
+        return names == null ? new ArrayList<String>() : names.toList();
+    }
+
+    /**
+     * Counts every value and item name once, along with the maps and arrays holding them.
+     * Indexed names like "job[1]" are not counted.
+     */
+    @Override
+    long getEstimatedSize() {
+        long size = 2 * MAP_SIZE;
+        for (SortedNameSet names: valueToNames.values()) {
+            size += ENTRY_SIZE + getEstimatedSize(names.getValue()) + names.getEstimatedSize();
+        }
+        for (Map.Entry<String, Object> entry: itemSets.entrySet()) {
+            size += ENTRY_SIZE + getEstimatedSize(entry.getKey());
+            if (entry.getValue() instanceof SortedNameSet[]) {
+                size += 16 + 4L * ((SortedNameSet[]) entry.getValue()).length;
+            }
+        }
+        return size;
+    }
+}
@@ -46,10 +46,10 @@ public class ParametersStringSlice<I> extends UnorderedStringSlice<I> {
 			joinedValues.add(buf.toString());
 		}
 		
-        return new UnorderedStringSlice<I>(getSpec(), 
-        		joinedValues,
-        		getStringList(formData, "itemNames")
-        		);
+        return newInstance(joinedValues,
+        		getStringList(formData, "itemNames"),
+        		SliceWindow.fromForm(formData),
+        		getShown(formData));
     }
 	
 }
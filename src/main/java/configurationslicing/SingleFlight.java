@@ -0,0 +1,54 @@
+package configurationslicing;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Lets concurrent callers asking for the same key share one computation: the first caller
+ * runs it, the others wait for it and get the same result.  Nothing is kept once it is done,
+ * so a caller arriving afterwards computes afresh.
+ *
+ * The result is handed to several callers at once, so they must treat it as read only.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<K, FutureTask<V>>();
+
+    public V get(K key, Callable<V> computation) {
+        FutureTask<V> task = new FutureTask<V>(computation);
+        FutureTask<V> running = inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+            running = task;
+        }
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Failed to compute " + key, cause);
+        }
+    }
+
+    /**
+     * @return how many computations are running right now
+     */
+    public int size() {
+        return inFlight.size();
+    }
+}
@@ -1,6 +1,10 @@
 package configurationslicing;
 
 import hudson.model.Descriptor.FormException;
+
+import java.util.List;
+import java.util.Map;
+
 import net.sf.json.JSONObject;
 
 import org.kohsuke.stapler.StaplerRequest;
@@ -8,4 +12,19 @@ import org.kohsuke.stapler.StaplerRequest;
 public abstract class Slice{
     public abstract Slice newInstance(StaplerRequest req, JSONObject formData)
             throws FormException ;
+
+    /**
+     * @return configured value to item names, restricted to the window, for the read API;
+     *         null if this kind of slice cannot be read that way
+     */
+    public Map<String, List<String>> getValueGroups(SliceWindow window) {
+        return null;
+    }
+
+    /**
+     * @return a rough estimate in bytes of the heap this slice holds on to, or -1 if unknown
+     */
+    public long getEstimatedSize() {
+        return -1;
+    }
 }
@@ -0,0 +1,209 @@
+package configurationslicing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import javax.servlet.http.HttpServletResponse;
+
+import jenkins.model.Jenkins;
+import net.sf.json.util.JSONUtils;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import configurationslicing.ConfigurationSlicing.SliceExecutor;
+
+/**
+ * API of one slicer: reads at <code>slicing/&lt;url&gt;/api/json</code>, writes at <code>slicing/&lt;url&gt;/api/apply</code>.
+ * Takes the same <code>page</code>, <code>pageSize</code>, <code>filter</code> and <code>prefix</code>
+ * parameters as the slice page.
+ *
+ * The ETag is the version of the slicer's snapshot, if it keeps one, so a poller sending it back in
+ * <code>If-None-Match</code> gets a 304 without the slice being accumulated or even copied.
+ * It also covers the window and the user, so a cached response is not reused for another of either.
+ */
+public class SliceApi<T extends Slice, I> {
+
+    private static final Logger LOGGER = Logger.getLogger(SliceApi.class.getName());
+
+    private final SliceExecutor<T, I> executor;
+
+    public SliceApi(SliceExecutor<T, I> executor) {
+        this.executor = executor;
+    }
+
+    public void doJson(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Slicer<T, I> slicer = executor.getSlicer();
+        SliceWindow window = executor.getWindow();
+
+        String etag = null;
+        T slice = null;
+        if (executor.getView() == null && !SliceSnapshots.DISABLED) {
+            long version = SliceSnapshots.getVersion(slicer);
+            if (version <= 0) {
+                // build the snapshot first, so that the version below belongs to it
+                slice = executor.getSlice();
+                version = SliceSnapshots.getVersion(slicer);
+            }
+            // slicers without a snapshot have no version, and get no ETag
+            if (version > 0) {
+                // taken before the slice is read, so at worst the client fetches the same data again
+                String context = window.getQuery(window.getPage()) + "\n" + Jenkins.getAuthentication().getName();
+                etag = "\"" + version + "-" + context.hashCode() + "\"";
+                if (matchesETag(req.getHeader("If-None-Match"), etag)) {
+                    rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+        }
+
+        if (slice == null) {
+            slice = executor.getSlice();
+        }
+        Map<String, List<String>> groups = slice.getValueGroups(window);
+        if (groups == null) {
+            rsp.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED, slicer.getUrl() + " cannot be read as value groups");
+            return;
+        }
+        if (etag != null) {
+            rsp.setHeader("ETag", etag);
+        }
+        rsp.setContentType("application/json;charset=UTF-8");
+        PrintWriter w = rsp.getWriter();
+        // written by hand, json-lib would turn values that look like JSON (e.g. "[a, b]") into arrays
+        w.print("{\"name\":" + JSONUtils.quote(slicer.getName()));
+        w.print(",\"url\":" + JSONUtils.quote(slicer.getUrl()));
+        w.print(",\"page\":" + window.getPage());
+        w.print(",\"pageSize\":" + window.getPageSize());
+        w.print(",\"pageCount\":" + window.getPageCount());
+        w.print(",\"total\":" + window.getTotal());
+        w.print(",\"groups\":[");
+        boolean first = true;
+        for (Map.Entry<String, List<String>> group: groups.entrySet()) {
+            w.print(first ? "" : ",");
+            first = false;
+            w.print("{\"value\":" + JSONUtils.quote(group.getKey()) + ",\"items\":[");
+            for (int i = 0; i < group.getValue().size(); i++) {
+                w.print(i == 0 ? "" : ",");
+                w.print(JSONUtils.quote(group.getValue().get(i)));
+            }
+            w.print("]}");
+        }
+        w.print("]}");
+    }
+
+    /**
+     * Whether an <code>If-None-Match</code> header names the ETag: a list of tags, any of which
+     * may be weak (<code>W/"..."</code>) and are compared weakly, or <code>*</code>.
+     */
+    static boolean matchesETag(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String tag: parseETags(header)) {
+            if (tag.equals("*") || stripWeak(tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits a list of entity tags at the commas between them; quoted tags may contain commas.
+     */
+    static List<String> parseETags(String header) {
+        List<String> tags = new ArrayList<String>();
+        StringBuilder tag = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                addETag(tags, tag);
+                continue;
+            }
+            tag.append(c);
+        }
+        addETag(tags, tag);
+        return tags;
+    }
+
+    private static void addETag(List<String> tags, StringBuilder tag) {
+        String trimmed = tag.toString().trim();
+        if (trimmed.length() > 0) {
+            tags.add(trimmed);
+        }
+        tag.setLength(0);
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    /**
+     * Applies an NDJSON stream of <code>{"item":..., "index":..., "value":...}</code> records, one per line.
+     * Lines are read and applied one at a time, so the request body is never held in memory as a whole.
+     * Records for the same item should be next to each other, each such run is saved once.
+     */
+    @RequirePOST
+    public void doApply(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        Slicer<T, I> slicer = executor.getSlicer();
+        SliceRecordApplier<?> applier = SliceRecordApplier.of(slicer);
+        if (applier == null) {
+            rsp.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED, slicer.getUrl() + " cannot be written as records");
+            return;
+        }
+        long start = System.nanoTime();
+        BufferedReader in = req.getReader();
+        int line = 0;
+        String text;
+        while ((text = in.readLine()) != null) {
+            line++;
+            if (text.trim().length() == 0) {
+                continue;
+            }
+            SliceRecord record;
+            try {
+                record = SliceRecord.parseJson(text, line);
+            } catch (IllegalArgumentException e) {
+                applier.reject(line, e.getMessage());
+                continue;
+            }
+            applier.add(record);
+        }
+        applier.finish();
+        SlicerMetrics.of(slicer).applied(System.nanoTime() - start);
+        LOGGER.info("Applied " + applier.getRecords() + " records to " + slicer.getUrl() + ": "
+                + applier.getChanged() + " of " + applier.getItems() + " items changed, " + applier.getFailed() + " failed");
+        writeSummary(rsp, applier);
+    }
+
+    static void writeSummary(StaplerResponse rsp, SliceRecordApplier<?> applier) throws IOException {
+        writeSummary(rsp, applier.getRecords(), applier.getItems(), applier.getChanged(), applier.getFailed(),
+                applier.getErrors());
+    }
+
+    static void writeSummary(StaplerResponse rsp, int records, int items, int changed, int failed, List<String> errors)
+            throws IOException {
+        rsp.setContentType("application/json;charset=UTF-8");
+        PrintWriter w = rsp.getWriter();
+        w.print("{\"records\":" + records);
+        w.print(",\"items\":" + items);
+        w.print(",\"changed\":" + changed);
+        w.print(",\"failed\":" + failed);
+        w.print(",\"errors\":[");
+        for (int i = 0; i < errors.size(); i++) {
+            w.print(i == 0 ? "" : ",");
+            w.print(JSONUtils.quote(errors.get(i)));
+        }
+        w.print("]}");
+    }
+}
@@ -0,0 +1,90 @@
+package configurationslicing;
+
+import hudson.model.Item;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reports slicing activity to Java Flight Recorder, when the plugin was built with the
+ * <code>jfr</code> profile and runs on a JVM that has it.  Otherwise every call is a no-op,
+ * so callers never need to check.
+ *
+ * The JFR event classes live in <code>src/main/jfr</code> and are loaded by name, because
+ * the rest of the plugin has to keep running on JVMs without <code>jdk.jfr</code>.
+ */
+public class SliceEvents {
+
+    private static final Logger LOGGER = Logger.getLogger(SliceEvents.class.getName());
+
+    public static final String ACCUMULATE = "accumulate";
+    public static final String GET_VALUES = "getValues";
+    public static final String SET_VALUES = "setValues";
+    public static final String SAVE = "save";
+
+    /**
+     * One recorded operation, ended once with its outcome.
+     */
+    public interface Span {
+        void end(String outcome);
+    }
+
+    /**
+     * Implemented by the JFR event classes.
+     */
+    public interface Recorder {
+        /**
+         * @return a started span, or null if events of this type are not being recorded
+         */
+        Span begin(String type, String url, String item);
+    }
+
+    private static final Span NONE = new Span() {
+        public void end(String outcome) {
+        }
+    };
+
+    private static final Recorder RECORDER = load();
+
+    // private constructor since we don't expect this class to be instantiated
+    private SliceEvents() {
+    }
+
+    private static Recorder load() {
+        try {
+            return (Recorder) Class.forName("configurationslicing.jfr.JfrSliceEvents").newInstance();
+        } catch (ClassNotFoundException e) {
+            // built without the jfr profile
+            return null;
+        } catch (Throwable t) {
+            // built with it, but running on a JVM without jdk.jfr
+            LOGGER.log(Level.FINE, "Flight Recorder events are not available", t);
+            return null;
+        }
+    }
+
+    /**
+     * @param item the item, or null for operations on a whole slicer
+     */
+    public static Span begin(String type, String url, Object item) {
+        if (RECORDER == null) {
+            return NONE;
+        }
+        Span span = RECORDER.begin(type, url, getName(item));
+        return span == null ? NONE : span;
+    }
+
+    public static boolean isEnabled() {
+        return RECORDER != null;
+    }
+
+    private static String getName(Object item) {
+        if (item == null) {
+            return null;
+        }
+        if (item instanceof Item) {
+            return ((Item) item).getFullName();
+        }
+        return item.toString();
+    }
+}
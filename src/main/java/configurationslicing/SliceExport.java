@@ -0,0 +1,136 @@
+package configurationslicing;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sf.json.util.JSONUtils;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Streams the values of every slicer at <code>slicing/export</code>, one record per value:
+ * job, slicer url, index and value.  <code>format=json</code> writes JSON lines in the form
+ * <code>api/apply</code> of each slicer reads, anything else CSV.  Repeated <code>slicers</code>
+ * parameters restrict the export to those slicers.
+ *
+ * Like {@link SliceMatrix}, the work domains are merged and each item is visited once, and its
+ * records are written right away, so no slice is ever built.  Only slicers that {@link SliceMatrix}
+ * can read are exported.
+ */
+public class SliceExport {
+
+    private static final Logger LOGGER = Logger.getLogger(SliceExport.class.getName());
+
+    // flush now and then, so that the client sees progress on large controllers
+    private static final int FLUSH_ITEMS = 100;
+
+    private final List<Slicer> slicers;
+    private final boolean json;
+
+    public SliceExport(List<Slicer> slicers, boolean json) {
+        this.slicers = slicers;
+        this.json = json;
+    }
+
+    static SliceExport fromRequest(ConfigurationSlicing parent, StaplerRequest req) {
+        String[] urls = req.getParameterValues("slicers");
+        List<Slicer> slicers = new ArrayList<Slicer>();
+        for (Slicer slicer: parent.getAxes()) {
+            if (SliceMatrix.isReadable(slicer) && (urls == null || Arrays.asList(urls).contains(slicer.getUrl()))) {
+                slicers.add(slicer);
+            }
+        }
+        return new SliceExport(slicers, "json".equals(req.getParameter("format")));
+    }
+
+    public void write(StaplerResponse rsp) throws IOException {
+        if (json) {
+            rsp.setContentType("application/x-ndjson;charset=UTF-8");
+            rsp.setHeader("Content-Disposition", "attachment; filename=slices.jsonl");
+        } else {
+            rsp.setContentType("text/csv;charset=UTF-8");
+            rsp.setHeader("Content-Disposition", "attachment; filename=slices.csv");
+        }
+        write(rsp.getWriter());
+    }
+
+    /**
+     * @return the number of records written
+     */
+    public int write(PrintWriter w) {
+        long start = System.currentTimeMillis();
+        if (!json) {
+            w.print("job,slicer,index,value\r\n");
+        }
+        List<Object> order = new ArrayList<Object>();
+        Map<Object, boolean[]> items = SliceMatrix.mergeDomains(slicers, order);
+        int records = 0;
+        int visited = 0;
+        for (Object item: order) {
+            boolean[] columns = items.get(item);
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c]) {
+                    records += write(w, slicers.get(c), item);
+                }
+            }
+            if (++visited % FLUSH_ITEMS == 0) {
+                w.flush();
+            }
+        }
+        w.flush();
+        LOGGER.info("Exported " + records + " records of " + slicers.size() + " slicers and " + order.size()
+                + " items in " + (System.currentTimeMillis() - start) + "ms");
+        return records;
+    }
+
+    private int write(PrintWriter w, Slicer slicer, Object item) {
+        String name;
+        List<String> values;
+        try {
+            name = SliceMatrix.getName(slicer, item);
+            values = SliceMatrix.getValues(slicer, item);
+        } catch (RuntimeException e) {
+            // one broken item should not end the whole export
+            LOGGER.log(Level.WARNING, "Could not read " + item + " for " + slicer.getUrl(), e);
+            return 0;
+        }
+        if (values == null) {
+            return 0;
+        }
+        boolean bool = slicer instanceof BooleanSlicer;
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i);
+            if (json) {
+                // written by hand, json-lib would turn values that look like JSON into arrays
+                w.print("{\"item\":" + JSONUtils.quote(name));
+                w.print(",\"slicer\":" + JSONUtils.quote(slicer.getUrl()));
+                w.print(",\"index\":" + i);
+                w.print(",\"value\":" + (bool ? value : JSONUtils.quote(value)));
+                w.print("}\n");
+            } else {
+                w.print(csv(name) + "," + csv(slicer.getUrl()) + "," + i + "," + csv(value) + "\r\n");
+            }
+        }
+        return values.size();
+    }
+
+    /**
+     * Quotes the field if it has to be, doubling quotes inside.
+     */
+    static String csv(String field) {
+        if (field == null) {
+            return "";
+        }
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,232 @@
+package configurationslicing;
+
+import hudson.BulkChange;
+import hudson.model.Saveable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import configurationslicing.SliceRecordApplier.BooleanApplier;
+
+/**
+ * Applies a CSV of job, slicer url, index and value rows, as written by {@link SliceExport}.
+ * The input is read one row at a time, and each row is handed to the {@link SliceRecordApplier}
+ * of its slicer.  When the job changes, the job's records of every slicer are applied and the job
+ * is saved once, so only one job's rows are in memory at a time.
+ *
+ * Rows of a job have to be next to each other, as they are in an export; a job that shows up again
+ * later is simply applied and saved again.  Values are strings, or true/false for boolean slicers.
+ */
+public class SliceImport {
+
+    private static final Logger LOGGER = Logger.getLogger(SliceImport.class.getName());
+
+    private final ConfigurationSlicing parent;
+    private final Map<String, SliceRecordApplier<?>> appliers = new HashMap<String, SliceRecordApplier<?>>();
+    // the slicers that have records of the current job
+    private final Set<SliceRecordApplier<?>> pending = new LinkedHashSet<SliceRecordApplier<?>>();
+    private String currentJob;
+
+    private int records;
+    private int jobs;
+    private int changed;
+    private int failed;
+    private final List<String> errors = new ArrayList<String>();
+
+    public SliceImport(ConfigurationSlicing parent) {
+        this.parent = parent;
+    }
+
+    public void read(Reader in) throws IOException {
+        long start = System.currentTimeMillis();
+        CsvReader csv = new CsvReader(in);
+        List<String> fields;
+        try {
+            while ((fields = csv.next()) != null) {
+                add(fields, csv.getLine());
+            }
+        } catch (IllegalArgumentException e) {
+            // the rest of the input cannot be split into rows reliably
+            records++;
+            failed++;
+            errors.add(e.getMessage());
+        }
+        flush();
+        LOGGER.info("Imported " + records + " records: " + changed + " of " + jobs + " jobs changed, "
+                + failed + " failed, in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private void add(List<String> fields, int line) {
+        if (fields.size() == 1 && fields.get(0).length() == 0) {
+            // blank line
+            return;
+        }
+        if (line == 1 && "job".equalsIgnoreCase(fields.get(0))) {
+            // the header
+            return;
+        }
+        if (fields.size() != 4) {
+            reject(line, "expected job, slicer, index and value, but found " + fields.size() + " fields");
+            return;
+        }
+        String job = fields.get(0);
+        SliceRecordApplier<?> applier = getApplier(fields.get(1));
+        if (applier == null) {
+            reject(line, "no slicer " + fields.get(1) + " that can be imported");
+            return;
+        }
+        int index;
+        try {
+            index = Integer.parseInt(fields.get(2).trim());
+        } catch (NumberFormatException e) {
+            reject(line, "index " + fields.get(2) + " is not a number");
+            return;
+        }
+        Object value = fields.get(3);
+        if (applier instanceof BooleanApplier) {
+            if ("true".equalsIgnoreCase(fields.get(3).trim())) {
+                value = Boolean.TRUE;
+            } else if ("false".equalsIgnoreCase(fields.get(3).trim())) {
+                value = Boolean.FALSE;
+            } else {
+                reject(line, "value must be true or false");
+                return;
+            }
+        }
+        if (!job.equals(currentJob)) {
+            flush();
+            currentJob = job;
+        }
+        records++;
+        pending.add(applier);
+        applier.add(new SliceRecord(job, index, value, line));
+    }
+
+    private SliceRecordApplier<?> getApplier(String url) {
+        if (!appliers.containsKey(url)) {
+            Slicer<?, ?> slicer = parent.getSlicer(url);
+            appliers.put(url, slicer == null ? null : SliceRecordApplier.of(slicer));
+        }
+        return appliers.get(url);
+    }
+
+    private void reject(int line, String message) {
+        records++;
+        failed++;
+        error("line " + line + ": " + message);
+    }
+
+    private void error(String message) {
+        if (errors.size() < SliceRecordApplier.MAX_ERRORS) {
+            errors.add(message);
+        }
+    }
+
+    /**
+     * Applies the current job's records of every slicer, inside one more {@link BulkChange}
+     * so that the per-slicer saves fold into one save of the job.  The job is looked up by each
+     * applier, as some specs name their items by display name rather than full name.
+     */
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        jobs++;
+        Saveable item = null;
+        for (SliceRecordApplier<?> applier: pending) {
+            Object o = applier.getItem(currentJob);
+            if (o instanceof Saveable) {
+                item = (Saveable) o;
+                break;
+            }
+        }
+        BulkChange bc = item != null ? new BulkChange(item) : null;
+        int changedBefore = countChanged();
+        int failedBefore = countFailed();
+        try {
+            for (SliceRecordApplier<?> applier: pending) {
+                // applies what is pending for the job, the applier's own batch is nested in ours
+                applier.finish();
+            }
+            boolean jobChanged = countChanged() > changedBefore;
+            if (jobChanged) {
+                changed++;
+                if (bc != null) {
+                    bc.commit();
+                }
+            }
+            if (countFailed() > failedBefore) {
+                failed++;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + currentJob + " after importing", e);
+            failed++;
+            error(currentJob + ": " + e);
+        } finally {
+            if (bc != null) {
+                bc.abort();
+            }
+            pending.clear();
+        }
+    }
+
+    private int countChanged() {
+        int count = 0;
+        for (SliceRecordApplier<?> applier: appliers.values()) {
+            if (applier != null) {
+                count += applier.getChanged();
+            }
+        }
+        return count;
+    }
+
+    private int countFailed() {
+        int count = 0;
+        for (SliceRecordApplier<?> applier: appliers.values()) {
+            if (applier != null) {
+                count += applier.getFailed();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the rows read, not counting the header and blank lines
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    public int getJobs() {
+        return jobs;
+    }
+
+    public int getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return the rows that could not be read, plus the jobs that could not be changed
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<String> getErrors() {
+        List<String> list = new ArrayList<String>(errors);
+        for (SliceRecordApplier<?> applier: appliers.values()) {
+            if (applier != null) {
+                list.addAll(applier.getErrors());
+            }
+        }
+        return list;
+    }
+}
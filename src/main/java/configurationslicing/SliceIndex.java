@@ -0,0 +1,78 @@
+package configurationslicing;
+
+import java.util.List;
+
+/**
+ * Which names have which value in an {@link UnorderedStringSlice}.  Names are item names,
+ * possibly indexed like "job[1]"; removing an item removes all of its indexed names as well.
+ *
+ * Chosen with the system property <code>configurationslicing.ConfigurationSlicing.sliceBackend</code>:
+ * <code>names</code> (the default) keeps the names of each value in a {@link SortedNameSet},
+ * <code>ids</code> numbers the names of each slice in its own {@link NameDictionary} and keeps int ids
+ * instead, which is smaller on controllers with many items.
+ */
+abstract class SliceIndex {
+
+    public static final String BACKEND = System.getProperty(
+            ConfigurationSlicing.class.getName() + ".sliceBackend", "names");
+
+    // rough object sizes in bytes for getEstimatedSize(), assuming compressed references
+    static final long MAP_SIZE = 64;
+    static final long ENTRY_SIZE = 40;
+    static final long LIST_SIZE = 40;
+
+    static SliceIndex create() {
+        if ("ids".equals(BACKEND)) {
+            return new IdSliceIndex();
+        }
+        return new NameSetIndex();
+    }
+
+    abstract void add(String value, String name);
+
+    /**
+     * Takes the item out of every value, including its indexed names.
+     */
+    abstract void removeItem(String itemName);
+
+    /**
+     * Adds everything the other index holds.  The other index is left untouched.
+     */
+    abstract void addAll(SliceIndex other);
+
+    /**
+     * @return a copy of the values that some name has
+     */
+    abstract List<String> getValues();
+
+    /**
+     * @return a copy of the names having this value in their natural order, empty if there are none
+     */
+    abstract List<String> getNames(String value);
+
+    /**
+     * @return a rough estimate in bytes of the heap this index holds on to
+     */
+    abstract long getEstimatedSize();
+
+    /**
+     * For indexes of a different kind, which only happens if the backend changes while running.
+     */
+    protected void addAllNames(SliceIndex other) {
+        for (String value: other.getValues()) {
+            for (String name: other.getNames(value)) {
+                add(value, name);
+            }
+        }
+    }
+
+    static String getItemName(String name) {
+        int bracket = name.indexOf('[');
+        return bracket > 0 ? name.substring(0, bracket) : name;
+    }
+
+    static long getEstimatedSize(String s) {
+        // the String object and its char array
+        return 24 + ((16 + 2L * s.length() + 7) & ~7);
+    }
+}
@@ -0,0 +1,231 @@
+package configurationslicing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.kohsuke.stapler.StaplerRequest;
+
+/**
+ * Shows several slicers side by side at <code>slicing/matrix</code>, one row per item and one
+ * column per slicer, so that e.g. labels, JDKs and timers can be audited together.
+ *
+ * The work domains of the chosen slicers are merged, and every item is visited once, reading
+ * all of the chosen slicers' values for it, rather than accumulating each slicer on its own.
+ * Only {@link UnorderedStringSlicer}s and {@link BooleanSlicer}s can be shown, as their specs
+ * can be read one item at a time.  The matrix is read only; changes are made on the slicer pages.
+ */
+public class SliceMatrix {
+
+    private final ConfigurationSlicing parent;
+    private final List<Slicer> chosen;
+    private final SliceWindow window;
+    private List<Row> rows;
+    private long duration;
+
+    public SliceMatrix(ConfigurationSlicing parent, StaplerRequest req) {
+        this.parent = parent;
+        this.window = SliceWindow.fromRequest(req);
+        String[] urls = req == null ? null : req.getParameterValues("slicers");
+        List<String> chosenUrls = urls == null ? Collections.<String>emptyList() : Arrays.asList(urls);
+        chosen = new ArrayList<Slicer>();
+        for (Slicer slicer: getSlicers()) {
+            if (chosenUrls.contains(slicer.getUrl())) {
+                chosen.add(slicer);
+            }
+        }
+    }
+
+    public ConfigurationSlicing getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the slicers that can be shown in the matrix
+     */
+    public List<Slicer> getSlicers() {
+        List<Slicer> list = new ArrayList<Slicer>();
+        for (Slicer slicer: parent.getAxes()) {
+            if (isReadable(slicer)) {
+                list.add(slicer);
+            }
+        }
+        return list;
+    }
+
+    public List<Slicer> getChosen() {
+        return chosen;
+    }
+
+    public boolean isChosen(Slicer slicer) {
+        return chosen.contains(slicer);
+    }
+
+    public SliceWindow getWindow() {
+        return window;
+    }
+
+    /**
+     * @return the rows inside the window
+     */
+    public List<Row> getRows() {
+        if (rows == null) {
+            rows = window.page(build());
+        }
+        return rows;
+    }
+
+    /**
+     * @return milliseconds it took to read the items
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public String getPageUrl(int page) {
+        StringBuilder buf = new StringBuilder("?").append(window.getQuery(page));
+        for (Slicer slicer: chosen) {
+            buf.append("&slicers=").append(SliceWindow.encode(slicer.getUrl()));
+        }
+        return buf.toString();
+    }
+
+    private List<Row> build() {
+        long start = System.currentTimeMillis();
+        List<Object> order = new ArrayList<Object>();
+        Map<Object, boolean[]> items = mergeDomains(chosen, order);
+
+        List<Row> list = new ArrayList<Row>();
+        for (Object item: order) {
+            boolean[] columns = items.get(item);
+            String name = null;
+            for (int c = 0; name == null && c < columns.length; c++) {
+                if (columns[c]) {
+                    name = getName(chosen.get(c), item);
+                }
+            }
+            if (!window.matchesName(name)) {
+                continue;
+            }
+            String[] cells = new String[columns.length];
+            boolean matches = window.getFilter() == null;
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c]) {
+                    cells[c] = read(chosen.get(c), item);
+                    matches |= window.matchesValue(cells[c]);
+                }
+            }
+            if (matches) {
+                list.add(new Row(name, cells));
+            }
+        }
+        Collections.sort(list, new Comparator<Row>() {
+            public int compare(Row r1, Row r2) {
+                return String.CASE_INSENSITIVE_ORDER.compare(r1.name, r2.name);
+            }
+        });
+        duration = System.currentTimeMillis() - start;
+        return list;
+    }
+
+    /**
+     * @param order filled with every item of any of the slicers, in the order first seen
+     * @return for each item, which of the slicers have it in their work domain
+     */
+    @SuppressWarnings("unchecked")
+    static Map<Object, boolean[]> mergeDomains(List<Slicer> slicers, List<Object> order) {
+        Map<Object, boolean[]> items = new IdentityHashMap<Object, boolean[]>();
+        for (int c = 0; c < slicers.size(); c++) {
+            for (Object item: (List<Object>) slicers.get(c).getWorkDomain()) {
+                boolean[] columns = items.get(item);
+                if (columns == null) {
+                    columns = new boolean[slicers.size()];
+                    items.put(item, columns);
+                    order.add(item);
+                }
+                columns[c] = true;
+            }
+        }
+        return items;
+    }
+
+    /**
+     * @return true for the slicers whose values can be read one item at a time
+     */
+    static boolean isReadable(Slicer slicer) {
+        return slicer instanceof UnorderedStringSlicer || slicer instanceof BooleanSlicer;
+    }
+
+    @SuppressWarnings("unchecked")
+    static String getName(Slicer slicer, Object item) {
+        if (slicer instanceof UnorderedStringSlicer) {
+            return ((UnorderedStringSlicer) slicer).getSpec().getName(item);
+        }
+        return ((BooleanSlicer) slicer).getSpec().getName(item);
+    }
+
+    private static String read(Slicer slicer, Object item) {
+        List<String> values = getValues(slicer, item);
+        return values == null ? "" : join(values);
+    }
+
+    /**
+     * Reads one item's values straight from the slicer's spec, without accumulating a slice.
+     * @return the values, or null if the spec has none for the item
+     */
+    @SuppressWarnings("unchecked")
+    static List<String> getValues(Slicer slicer, Object item) {
+        long t0 = System.nanoTime();
+        SliceEvents.Span span = SliceEvents.begin(SliceEvents.GET_VALUES, slicer.getUrl(), item);
+        String outcome = "failed";
+        try {
+            List<String> values;
+            if (slicer instanceof UnorderedStringSlicer) {
+                values = ((UnorderedStringSlicer) slicer).getSpec().getValues(item);
+            } else {
+                values = Collections.singletonList(String.valueOf(((BooleanSlicer) slicer).getSpec().getValue(item)));
+            }
+            outcome = "read";
+            return values;
+        } finally {
+            span.end(outcome);
+            SlicerMetrics.of(slicer).read(System.nanoTime() - t0);
+        }
+    }
+
+    private static String join(List<String> values) {
+        StringBuilder buf = new StringBuilder();
+        for (String value: values) {
+            if (buf.length() > 0) {
+                buf.append('\n');
+            }
+            buf.append(value);
+        }
+        return buf.toString();
+    }
+
+    public static class Row {
+        private final String name;
+        private final String[] cells;
+
+        Row(String name, String[] cells) {
+            this.name = name;
+            this.cells = cells;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the value of each chosen slicer, null where the item is not in that slicer's domain
+         */
+        public List<String> getCells() {
+            return Arrays.asList(cells);
+        }
+    }
+}
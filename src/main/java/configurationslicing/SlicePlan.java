@@ -0,0 +1,114 @@
+package configurationslicing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+/**
+ * The changes a submitted slice would make, worked out from the accumulated slice without
+ * touching any item.  Confirming it applies exactly these items as one {@link ApplyTask}.
+ */
+public class SlicePlan<T, I> {
+
+    private final int id;
+    private final ConfigurationSlicing parent;
+    private final Slicer<T, I> slicer;
+    private final T slice;
+    private final List<Entry<I>> entries;
+    private final long duration;
+    private ApplyTask<T, I> apply;
+
+    SlicePlan(int id, ConfigurationSlicing parent, Slicer<T, I> slicer, T slice, List<Entry<I>> entries, long duration) {
+        this.id = id;
+        this.parent = parent;
+        this.slicer = slicer;
+        this.slice = slice;
+        this.entries = Collections.unmodifiableList(entries);
+        this.duration = duration;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public ConfigurationSlicing getParent() {
+        return parent;
+    }
+
+    public Slicer<T, I> getSlicer() {
+        return slicer;
+    }
+
+    public List<Entry<I>> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return a new window on the entries for the current request, since a plan can cover thousands of items;
+     *         plans are shared, so the window is never kept
+     */
+    public SliceWindow getWindow() {
+        return SliceWindow.fromRequest(Stapler.getCurrentRequest());
+    }
+
+    /**
+     * @return how long it took to work out the plan, in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public synchronized ApplyTask<T, I> getApply() {
+        return apply;
+    }
+
+    @RequirePOST
+    public void doConfirm(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        ApplyTask<T, I> task;
+        synchronized (this) {
+            // confirming twice must not apply twice
+            if (apply == null) {
+                List<I> items = new ArrayList<I>(entries.size());
+                for (Entry<I> entry: entries) {
+                    items.add(entry.getItem());
+                }
+                apply = parent.startApply(slicer, slice, items);
+            }
+            task = apply;
+        }
+        rsp.sendRedirect2(req.getContextPath() + "/" + parent.getUrlName() + "/" + slicer.getUrl() + "/apply/" + task.getId() + "/");
+    }
+
+    /**
+     * One item that would change, with its values before and after.
+     */
+    public static class Entry<I> {
+        private final I item;
+        private final List<String> before;
+        private final List<String> after;
+
+        public Entry(I item, List<String> before, List<String> after) {
+            this.item = item;
+            this.before = before;
+            this.after = after;
+        }
+
+        public I getItem() {
+            return item;
+        }
+
+        public List<String> getBefore() {
+            return before;
+        }
+
+        public List<String> getAfter() {
+            return after;
+        }
+    }
+}
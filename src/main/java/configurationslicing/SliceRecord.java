@@ -0,0 +1,190 @@
+package configurationslicing;
+
+/**
+ * One value of one item, as streamed into {@link SliceRecordApplier}.
+ * For string slicers the value is a string (null removes the value at that index),
+ * for boolean slicers it is a boolean.
+ */
+public class SliceRecord {
+
+    private final String item;
+    private final int index;
+    private final Object value;
+    private final int line;
+
+    public SliceRecord(String item, int index, Object value, int line) {
+        this.item = item;
+        this.index = index;
+        this.value = value;
+        this.line = line;
+    }
+
+    public String getItem() {
+        return item;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * @return where the record came from in the input, for error messages
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Parses one NDJSON line like <code>{"item":"a/b","index":0,"value":"..."}</code>.
+     * Only flat objects of strings, numbers, booleans and null are accepted; json-lib is not
+     * used because it turns strings that look like JSON into arrays and objects.
+     * @throws IllegalArgumentException if the line is not such an object or has no item
+     */
+    public static SliceRecord parseJson(String text, int line) {
+        Parser p = new Parser(text);
+        String item = null;
+        int index = 0;
+        Object value = null;
+        p.expect('{');
+        if (!p.skip('}')) {
+            do {
+                String key = p.readString();
+                p.expect(':');
+                Object o = p.readValue();
+                if ("item".equals(key)) {
+                    if (!(o instanceof String)) {
+                        throw new IllegalArgumentException("item must be a string");
+                    }
+                    item = (String) o;
+                } else if ("index".equals(key)) {
+                    if (!(o instanceof Long)) {
+                        throw new IllegalArgumentException("index must be a number");
+                    }
+                    index = ((Long) o).intValue();
+                } else if ("value".equals(key)) {
+                    value = o;
+                }
+                // anything else is ignored, so that records can carry extra information
+            } while (p.skip(','));
+            p.expect('}');
+        }
+        p.end();
+        if (item == null) {
+            throw new IllegalArgumentException("no item");
+        }
+        return new SliceRecord(item, index, value, line);
+    }
+
+    private static class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        private void whitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        boolean skip(char c) {
+            whitespace();
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!skip(c)) {
+                throw new IllegalArgumentException("expected '" + c + "' at " + pos);
+            }
+        }
+
+        void end() {
+            whitespace();
+            if (pos != s.length()) {
+                throw new IllegalArgumentException("unexpected text at " + pos);
+            }
+        }
+
+        Object readValue() {
+            whitespace();
+            if (pos >= s.length()) {
+                throw new IllegalArgumentException("missing value");
+            }
+            char c = s.charAt(pos);
+            if (c == '"') {
+                return readString();
+            } else if (s.startsWith("true", pos)) {
+                pos += 4;
+                return Boolean.TRUE;
+            } else if (s.startsWith("false", pos)) {
+                pos += 5;
+                return Boolean.FALSE;
+            } else if (s.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            } else if (c == '-' || Character.isDigit(c)) {
+                int start = pos++;
+                while (pos < s.length() && Character.isDigit(s.charAt(pos))) {
+                    pos++;
+                }
+                try {
+                    return Long.valueOf(s.substring(start, pos));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("bad number at " + start);
+                }
+            }
+            throw new IllegalArgumentException("unexpected '" + c + "' at " + pos);
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder buf = new StringBuilder();
+            while (pos < s.length()) {
+                char c = s.charAt(pos++);
+                if (c == '"') {
+                    return buf.toString();
+                }
+                if (c != '\\') {
+                    buf.append(c);
+                    continue;
+                }
+                if (pos >= s.length()) {
+                    break;
+                }
+                char e = s.charAt(pos++);
+                switch (e) {
+                case 'n': buf.append('\n'); break;
+                case 'r': buf.append('\r'); break;
+                case 't': buf.append('\t'); break;
+                case 'b': buf.append('\b'); break;
+                case 'f': buf.append('\f'); break;
+                case 'u':
+                    if (pos + 4 > s.length()) {
+                        throw new IllegalArgumentException("bad escape at " + pos);
+                    }
+                    try {
+                        buf.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw new IllegalArgumentException("bad escape at " + pos);
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    // \" \\ \/
+                    buf.append(e);
+                }
+            }
+            throw new IllegalArgumentException("unterminated string");
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package configurationslicing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import configurationslicing.BooleanSlicer.BooleanSlicerSpec;
+import configurationslicing.UnorderedStringSlicer.UnorderedStringSlicerSpec;
+
+/**
+ * Applies a stream of {@link SliceRecord}s straight through the spec, without building a slice.
+ * Consecutive records for the same item are applied together and saved once; only those
+ * records are held in memory at a time.
+ */
+public abstract class SliceRecordApplier<I> {
+
+    private static final Logger LOGGER = Logger.getLogger(SliceRecordApplier.class.getName());
+
+    // keep the response small when every record is wrong
+    static final int MAX_ERRORS = 100;
+
+    private final String url;
+    private final WorkDomainIndex<I> index;
+    private final SlicerMetrics metrics;
+
+    private String currentName;
+    private List<SliceRecord> current = new ArrayList<SliceRecord>();
+
+    private int records;
+    private int items;
+    private int changed;
+    private int failed;
+    private final List<String> errors = new ArrayList<String>();
+
+    protected SliceRecordApplier(String url, WorkDomainIndex<I> index) {
+        this.url = url;
+        this.index = index;
+        this.metrics = SlicerMetrics.of(url);
+    }
+
+    /**
+     * @return an applier for this slicer, or null if its values cannot be written as records
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static SliceRecordApplier<?> of(Slicer<?, ?> slicer) {
+        if (slicer instanceof UnorderedStringSlicer) {
+            return new StringApplier(((UnorderedStringSlicer) slicer).getSpec());
+        } else if (slicer instanceof BooleanSlicer) {
+            return new BooleanApplier(((BooleanSlicer) slicer).getSpec());
+        }
+        return null;
+    }
+
+    /**
+     * @return the item records with this name are applied to, looked up the way they are, or null
+     */
+    Object getItem(String name) {
+        return index.get(name);
+    }
+
+    public void add(SliceRecord record) {
+        records++;
+        if (!record.getItem().equals(currentName)) {
+            flush();
+            currentName = record.getItem();
+        }
+        current.add(record);
+    }
+
+    /**
+     * Records a line that could not even be read as a record.
+     */
+    public void reject(int line, String message) {
+        records++;
+        failed++;
+        error("line " + line + ": " + message);
+    }
+
+    /**
+     * Applies whatever is still pending.  Call once at the end of the stream.
+     */
+    public void finish() {
+        flush();
+    }
+
+    private void flush() {
+        if (current.isEmpty()) {
+            return;
+        }
+        final List<SliceRecord> list = current;
+        current = new ArrayList<SliceRecord>();
+        items++;
+        final I item = index.get(currentName);
+        if (item == null) {
+            failed++;
+            error("line " + list.get(0).getLine() + ": no such item " + currentName);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean[] saved = new boolean[1];
+        try {
+            boolean itemChanged = ItemBatch.run(item, new ItemBatch.Change() {
+                public boolean apply() {
+                    return SliceRecordApplier.this.apply(item, list);
+                }
+            }, saved);
+            metrics.transformed(ItemOutcome.changed(item, itemChanged), saved[0], System.nanoTime() - start);
+            if (itemChanged) {
+                changed++;
+                SliceSnapshots.itemChanged(item);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + currentName + " after applying records to " + url, e);
+            metrics.transformed(ItemOutcome.failed(item, e), false, System.nanoTime() - start);
+            failed++;
+            error(currentName + ": " + e);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.FINE, "Failed to apply records to " + currentName + " of " + url, e);
+            metrics.transformed(ItemOutcome.failed(item, e), false, System.nanoTime() - start);
+            failed++;
+            error("line " + list.get(0).getLine() + ": " + currentName + ": " + e.getMessage());
+        }
+    }
+
+    private void error(String message) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(message);
+        }
+    }
+
+    /**
+     * Applies all records of one item; invalid records throw IllegalArgumentException before anything is set.
+     * @return true if the item was changed
+     */
+    protected abstract boolean apply(I item, List<SliceRecord> records);
+
+    public int getRecords() {
+        return records;
+    }
+
+    public int getItems() {
+        return items;
+    }
+
+    public int getChanged() {
+        return changed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Starts from the item's current values, so records only need to name the values that change.
+     */
+    static class StringApplier<I> extends SliceRecordApplier<I> {
+        private final UnorderedStringSlicerSpec<I> spec;
+
+        StringApplier(UnorderedStringSlicerSpec<I> spec) {
+            super(spec.getUrl(), WorkDomainIndex.of(spec));
+            this.spec = spec;
+        }
+
+        /**
+         * Indexes always refer to the item's values as they were, so deleted values are only
+         * dropped once every record was applied.
+         */
+        @Override
+        protected boolean apply(I item, List<SliceRecord> records) {
+            List<String> original = spec.getValues(item);
+            List<String> values = original == null ? new ArrayList<String>() : new ArrayList<String>(original);
+            Set<Integer> deleted = new HashSet<Integer>();
+            for (SliceRecord record: records) {
+                Object value = record.getValue();
+                if (value != null && !(value instanceof String)) {
+                    throw new IllegalArgumentException("value must be a string");
+                }
+                int i = record.getIndex();
+                if (i < 0 || i > values.size()) {
+                    throw new IllegalArgumentException("index " + i + " out of range, the item has " + values.size() + " values");
+                }
+                if (value == null) {
+                    if (i < values.size()) {
+                        deleted.add(i);
+                    }
+                } else if (i == values.size()) {
+                    values.add((String) value);
+                } else {
+                    values.set(i, (String) value);
+                    deleted.remove(i);
+                }
+            }
+            if (!deleted.isEmpty()) {
+                List<String> kept = new ArrayList<String>(values.size() - deleted.size());
+                for (int i = 0; i < values.size(); i++) {
+                    if (!deleted.contains(i)) {
+                        kept.add(values.get(i));
+                    }
+                }
+                values = kept;
+            }
+            if (original != null && UnorderedStringSlice.isSameValues(original, values)) {
+                return false;
+            }
+            return spec.setValues(item, values);
+        }
+    }
+
+    static class BooleanApplier<I> extends SliceRecordApplier<I> {
+        private final BooleanSlicerSpec<I> spec;
+
+        BooleanApplier(BooleanSlicerSpec<I> spec) {
+            super(spec.getUrl(), WorkDomainIndex.of(spec));
+            this.spec = spec;
+        }
+
+        @Override
+        protected boolean apply(I item, List<SliceRecord> records) {
+            Object value = null;
+            for (SliceRecord record: records) {
+                // the last record for the item wins
+                value = record.getValue();
+                if (!(value instanceof Boolean)) {
+                    throw new IllegalArgumentException("value must be true or false");
+                }
+            }
+            boolean b = ((Boolean) value).booleanValue();
+            if (spec.getValue(item) == b) {
+                return false;
+            }
+            return spec.setValue(item, b);
+        }
+    }
+}
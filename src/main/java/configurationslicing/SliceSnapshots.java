@@ -0,0 +1,264 @@
+package configurationslicing;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps one accumulated slice per slicer in memory, covering its whole work domain.
+ * The slice handed out is shared and never modified; when items are saved, the next use
+ * copies it once and recomputes only those items' entries, so opening a slice costs
+ * about as much as rendering it.
+ *
+ * Creating, deleting or moving items changes work domains, so those drop every snapshot.
+ * Slicers that are not {@link IncrementalSlicer incremental} are accumulated on every use.
+ * Disable with the system property <code>configurationslicing.ConfigurationSlicing.disableSnapshots</code>.
+ */
+public class SliceSnapshots {
+
+    private static final Logger LOGGER = Logger.getLogger(SliceSnapshots.class.getName());
+
+    public static final boolean DISABLED = Boolean.getBoolean(
+            ConfigurationSlicing.class.getName() + ".disableSnapshots");
+
+    private static final Map<String, Snapshot<?, ?>> SNAPSHOTS = new HashMap<String, Snapshot<?, ?>>();
+
+    // versions are unique across snapshots, so a rebuilt snapshot never reuses an old version
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    // concurrent first users of a snapshot wait for one build instead of each accumulating
+    private static final SingleFlight<Snapshot<?, ?>, Void> BUILDS = new SingleFlight<Snapshot<?, ?>, Void>();
+
+    // private constructor since we don't expect this class to be instantiated
+    private SliceSnapshots() {
+    }
+
+    /**
+     * @return the slicer's full slice, which may be shared with other callers and must not be modified
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, I> T getSlice(Slicer<T, I> plain) {
+        if (!(plain instanceof IncrementalSlicer)) {
+            // a snapshot could neither be copied nor kept up to date
+            return SliceWorkerPool.accumulate(plain, plain.getWorkDomain());
+        }
+        IncrementalSlicer<T, I> slicer = (IncrementalSlicer<T, I>) plain;
+        if (DISABLED) {
+            return SliceWorkerPool.accumulateShared(slicer, "", slicer.getWorkDomain());
+        }
+        Snapshot<T, I> snapshot;
+        synchronized (SNAPSHOTS) {
+            snapshot = (Snapshot<T, I>) SNAPSHOTS.get(slicer.getUrl());
+            if (snapshot == null || snapshot.slicer != slicer) {
+                snapshot = new Snapshot<T, I>(slicer);
+                SNAPSHOTS.put(slicer.getUrl(), snapshot);
+            }
+        }
+        try {
+            return snapshot.get();
+        } catch (RuntimeException e) {
+            // don't keep collecting saves for a snapshot that could not be built
+            synchronized (SNAPSHOTS) {
+                if (SNAPSHOTS.get(slicer.getUrl()) == snapshot) {
+                    SNAPSHOTS.remove(slicer.getUrl());
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return a number that changes whenever the slicer's snapshot changes, or -1 if there is none yet;
+     *         0 while the snapshot is being built
+     */
+    public static long getVersion(Slicer<?, ?> slicer) {
+        Snapshot<?, ?> snapshot;
+        synchronized (SNAPSHOTS) {
+            snapshot = SNAPSHOTS.get(slicer.getUrl());
+        }
+        return snapshot == null ? -1 : snapshot.getVersion();
+    }
+
+    /**
+     * Marks the entries of this item as stale in every snapshot that contains it; they are
+     * recomputed on the next use of the snapshot.
+     */
+    public static void itemChanged(Object item) {
+        for (Snapshot<?, ?> snapshot: getSnapshots()) {
+            snapshot.itemChanged(item);
+        }
+    }
+
+    public static void invalidate() {
+        synchronized (SNAPSHOTS) {
+            SNAPSHOTS.clear();
+        }
+    }
+
+    private static List<Snapshot<?, ?>> getSnapshots() {
+        synchronized (SNAPSHOTS) {
+            return new ArrayList<Snapshot<?, ?>>(SNAPSHOTS.values());
+        }
+    }
+
+    private static class Snapshot<T, I> {
+        private final IncrementalSlicer<T, I> slicer;
+        // replaced, never modified, once handed out
+        private T slice;
+        private Set<I> items;
+        private long version;
+        // items saved while the snapshot was still being accumulated
+        private List<Object> pending = new ArrayList<Object>();
+        // items saved since the slice was last handed out, replayed onto a copy on next use
+        private Set<I> changed;
+
+        Snapshot(IncrementalSlicer<T, I> slicer) {
+            this.slicer = slicer;
+        }
+
+        T get() {
+            synchronized (this) {
+                if (slice != null) {
+                    replay();
+                }
+                if (slice != null) {
+                    return slice;
+                }
+            }
+            BUILDS.get(this, new Callable<Void>() {
+                public Void call() {
+                    build();
+                    return null;
+                }
+            });
+            return get();
+        }
+
+        /**
+         * Publishes a copy of the slice with the changed items accumulated again, leaving the
+         * slice earlier callers got untouched.  Drops the slice if that fails, so it is rebuilt.
+         */
+        private void replay() {
+            if (changed.isEmpty()) {
+                return;
+            }
+            try {
+                T copy = slicer.combine(slicer.getInitialAccumulator(), slice);
+                for (I item: changed) {
+                    copy = slicer.remove(copy, item);
+                    copy = slicer.accumulate(copy, item);
+                }
+                slice = copy;
+                changed.clear();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not update snapshot of " + slicer.getUrl() + " for " + changed, e);
+                slice = null;
+                items = null;
+                changed = null;
+                pending = new ArrayList<Object>();
+            }
+        }
+
+        private void build() {
+            synchronized (this) {
+                if (slice != null) {
+                    // built while we were waiting to start
+                    return;
+                }
+            }
+            // accumulate outside of the lock so that saves are not held up meanwhile
+            List<I> domain = slicer.getWorkDomain();
+            T built = SliceWorkerPool.accumulate(slicer, domain);
+            Set<I> builtItems = Collections.newSetFromMap(new IdentityHashMap<I, Boolean>());
+            builtItems.addAll(domain);
+            synchronized (this) {
+                if (slice != null) {
+                    // someone else finished first
+                    return;
+                }
+                slice = built;
+                items = builtItems;
+                changed = Collections.newSetFromMap(new IdentityHashMap<I, Boolean>());
+                version = VERSIONS.incrementAndGet();
+                List<Object> saved = pending;
+                pending = null;
+                for (Object item: saved) {
+                    itemChanged(item);
+                }
+            }
+            long size = built instanceof Slice ? ((Slice) built).getEstimatedSize() : -1;
+            SlicerMetrics.of(slicer).snapshotBuilt(size);
+            LOGGER.fine("Built snapshot of " + slicer.getUrl() + " with " + domain.size() + " items, about "
+                    + size / 1024 + "KB");
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void itemChanged(Object o) {
+            if (slice == null) {
+                if (pending != null) {
+                    pending.add(o);
+                }
+                return;
+            }
+            if (!items.contains(o)) {
+                return;
+            }
+            // this runs inside someone else's save, so only note the item and recompute it on next use
+            changed.add((I) o);
+            version = VERSIONS.incrementAndGet();
+        }
+
+        synchronized long getVersion() {
+            return version;
+        }
+    }
+
+    @Extension
+    public static class SaveListener extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Item) {
+                itemChanged(o);
+            }
+        }
+    }
+
+    @Extension
+    public static class WorkDomainListener extends ItemListener {
+        @Override
+        public void onCreated(Item item) {
+            invalidate();
+        }
+        @Override
+        public void onDeleted(Item item) {
+            invalidate();
+        }
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            invalidate();
+        }
+        @Override
+        public void onUpdated(Item item) {
+            itemChanged(item);
+        }
+        @Override
+        public void onLoaded() {
+            invalidate();
+        }
+    }
+}
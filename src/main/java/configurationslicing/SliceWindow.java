@@ -0,0 +1,172 @@
+package configurationslicing;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.List;
+
+import net.sf.json.JSONObject;
+
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.stapler.StaplerRequest;
+
+/**
+ * The part of a slice that is rendered on one page: value groups (or items) matching the
+ * filters, cut into pages.  Only what falls inside the window is turned into HTML, and on
+ * submit only what was inside the window is replaced, everything else stays as it was.
+ *
+ * The default page size can be changed with the system property
+ * <code>configurationslicing.ConfigurationSlicing.pageSize</code>, 0 shows everything.
+ */
+public class SliceWindow {
+
+    public static final int DEFAULT_PAGE_SIZE = Integer.getInteger(
+            ConfigurationSlicing.class.getName() + ".pageSize", 200);
+
+    public static final SliceWindow ALL = new SliceWindow(0, 0, null, null);
+
+    private final int page;
+    private final int pageSize;
+    private final String filter;
+    private final String prefix;
+    // the number of groups or items that matched the filters, known once the slice was paged
+    private int total;
+
+    public SliceWindow(int page, int pageSize, String filter, String prefix) {
+        this.page = Math.max(page, 0);
+        this.pageSize = Math.max(pageSize, 0);
+        this.filter = StringUtils.isEmpty(filter) ? null : filter;
+        this.prefix = StringUtils.isEmpty(prefix) ? null : prefix;
+    }
+
+    /**
+     * Reads <code>page</code>, <code>pageSize</code>, <code>filter</code> and <code>prefix</code> from the query.
+     */
+    public static SliceWindow fromRequest(StaplerRequest req) {
+        if (req == null) {
+            return ALL;
+        }
+        return new SliceWindow(
+                parseInt(req.getParameter("page"), 0),
+                parseInt(req.getParameter("pageSize"), DEFAULT_PAGE_SIZE),
+                req.getParameter("filter"),
+                req.getParameter("prefix"));
+    }
+
+    /**
+     * Reads the hidden window fields that the slice form posts back.
+     */
+    public static SliceWindow fromForm(JSONObject formData) {
+        if (formData == null || !formData.has("windowPageSize")) {
+            return ALL;
+        }
+        return new SliceWindow(
+                parseInt(formData.optString("windowPage"), 0),
+                parseInt(formData.optString("windowPageSize"), 0),
+                formData.optString("windowFilter"),
+                formData.optString("windowPrefix"));
+    }
+
+    private static int parseInt(String s, int defaultValue) {
+        if (StringUtils.isBlank(s)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return true if the window covers the whole slice
+     */
+    public boolean isAll() {
+        return pageSize == 0 && filter == null && prefix == null;
+    }
+
+    /**
+     * @return true if the value contains the filter, ignoring case
+     */
+    public boolean matchesValue(String value) {
+        return filter == null || (value != null && value.toLowerCase().contains(filter.toLowerCase()));
+    }
+
+    /**
+     * @return true if the item name starts with the prefix, ignoring case
+     */
+    public boolean matchesName(String name) {
+        return prefix == null || (name != null && name.toLowerCase().startsWith(prefix.toLowerCase()));
+    }
+
+    /**
+     * Cuts the current page out of everything that matched, and remembers how much that was.
+     */
+    public <E> List<E> page(List<E> matching) {
+        total = matching.size();
+        if (pageSize == 0) {
+            return matching;
+        }
+        int from = Math.min(page * pageSize, total);
+        int to = Math.min(from + pageSize, total);
+        return matching.subList(from, to);
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getPageCount() {
+        if (pageSize == 0) {
+            return 1;
+        }
+        return Math.max(1, (total + pageSize - 1) / pageSize);
+    }
+
+    public boolean isPrevious() {
+        return page > 0;
+    }
+
+    public boolean isNext() {
+        return page + 1 < getPageCount();
+    }
+
+    /**
+     * @return the query parameters for another page of this window, without the leading '?'
+     */
+    public String getQuery(int otherPage) {
+        StringBuilder buf = new StringBuilder();
+        buf.append("page=").append(otherPage);
+        buf.append("&pageSize=").append(pageSize);
+        if (filter != null) {
+            buf.append("&filter=").append(encode(filter));
+        }
+        if (prefix != null) {
+            buf.append("&prefix=").append(encode(prefix));
+        }
+        return buf.toString();
+    }
+
+    static String encode(String s) {
+        try {
+            return URLEncoder.encode(s, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package configurationslicing;
+
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.acegisecurity.Authentication;
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+/**
+ * Helper class that splits the work domain of a slicer into chunks and accumulates them
+ * on a shared pool of daemon threads, and that applies transforms on a second, bounded pool.
+ *
+ * Tuned with the system properties <code>configurationslicing.ConfigurationSlicing.accumulateThreads</code>,
+ * <code>configurationslicing.ConfigurationSlicing.chunkSize</code>
+ * and <code>configurationslicing.ConfigurationSlicing.transformThreads</code>.
+ */
+public class SliceWorkerPool {
+
+    private static final Logger LOGGER = Logger.getLogger(SliceWorkerPool.class.getName());
+
+    public static final int ACCUMULATE_THREADS = Integer.getInteger(
+            ConfigurationSlicing.class.getName() + ".accumulateThreads",
+            Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Work domains smaller than this are accumulated on the calling thread.
+     */
+    public static final int CHUNK_SIZE = Math.max(1, Integer.getInteger(
+            ConfigurationSlicing.class.getName() + ".chunkSize", 500));
+
+    /**
+     * Each transform may write a config.xml, so keep this small to avoid flooding the disk.
+     */
+    public static final int TRANSFORM_THREADS = Integer.getInteger(
+            ConfigurationSlicing.class.getName() + ".transformThreads",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static ExecutorService accumulateExecutor;
+    private static ExecutorService transformExecutor;
+    private static ExecutorService applyExecutor;
+
+    private static final SingleFlight<String, Object> ACCUMULATIONS = new SingleFlight<String, Object>();
+
+    /**
+     * Lets the caller follow a transform as it goes, and stop it between items.
+     */
+    public interface Progress<I> {
+        boolean isCancelled();
+        void completed(ItemOutcome<I> outcome);
+    }
+
+    // private constructor since we don't expect this class to be instantiated
+    private SliceWorkerPool() {
+    }
+
+    private static synchronized ExecutorService getAccumulateExecutor() {
+        if (accumulateExecutor == null) {
+            accumulateExecutor = Executors.newFixedThreadPool(ACCUMULATE_THREADS,
+                    new NamingThreadFactory(new DaemonThreadFactory(), "ConfigurationSlicing.accumulate"));
+        }
+        return accumulateExecutor;
+    }
+
+    private static synchronized ExecutorService getTransformExecutor() {
+        if (transformExecutor == null) {
+            transformExecutor = Executors.newFixedThreadPool(TRANSFORM_THREADS,
+                    new NamingThreadFactory(new DaemonThreadFactory(), "ConfigurationSlicing.transform"));
+        }
+        return transformExecutor;
+    }
+
+    /**
+     * Applies run one at a time in the background, each fanning out to the transform pool.
+     */
+    public static synchronized Future<?> submitApply(Runnable apply) {
+        if (applyExecutor == null) {
+            applyExecutor = Executors.newSingleThreadExecutor(
+                    new NamingThreadFactory(new DaemonThreadFactory(), "ConfigurationSlicing.apply"));
+        }
+        return applyExecutor.submit(apply);
+    }
+
+    /**
+     * Accumulates every item into a slice, in parallel chunks if the slicer allows it.
+     */
+    public static <T, I> T accumulate(final Slicer<T, I> slicer, List<I> items) {
+        long start = System.nanoTime();
+        SliceEvents.Span span = SliceEvents.begin(SliceEvents.ACCUMULATE, slicer.getUrl(), null);
+        String outcome = "failed";
+        try {
+            T result = accumulateAll(slicer, items);
+            outcome = items.size() + " items";
+            return result;
+        } finally {
+            span.end(outcome);
+            SlicerMetrics.of(slicer).accumulated(items.size(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Like {@link #accumulate(Slicer, List)}, but concurrent callers passing the same key share one
+     * accumulation and all get the same slice, which they must not modify.  The key only needs to be
+     * unique within the slicer, and has to identify the items accumulated.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, I> T accumulateShared(final Slicer<T, I> slicer, String key, final List<I> items) {
+        return (T) ACCUMULATIONS.get(slicer.getUrl() + "/" + key, new Callable<Object>() {
+            public Object call() {
+                return accumulate(slicer, items);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, I> T accumulateAll(final Slicer<T, I> slicer, List<I> items) {
+        if (!(slicer instanceof IncrementalSlicer) || ACCUMULATE_THREADS <= 1 || items.size() <= CHUNK_SIZE) {
+            return accumulateChunk(slicer, items);
+        }
+        IncrementalSlicer<T, I> incremental = (IncrementalSlicer<T, I>) slicer;
+        if (!incremental.isAccumulateThreadSafe()) {
+            return accumulateChunk(slicer, items);
+        }
+
+        final Authentication auth = Jenkins.getAuthentication();
+        ExecutorService executor = getAccumulateExecutor();
+        List<Future<T>> futures = new ArrayList<Future<T>>();
+        for (int start = 0; start < items.size(); start += CHUNK_SIZE) {
+            final List<I> chunk = items.subList(start, Math.min(items.size(), start + CHUNK_SIZE));
+            futures.add(executor.submit(new Callable<T>() {
+                public T call() throws Exception {
+                    SecurityContext old = ACL.impersonate(auth);
+                    try {
+                        return accumulateChunk(slicer, chunk);
+                    } finally {
+                        SecurityContextHolder.setContext(old);
+                    }
+                }
+            }));
+        }
+
+        T result = null;
+        try {
+            for (Future<T> future: futures) {
+                T t = future.get();
+                result = result == null ? t : incremental.combine(result, t);
+            }
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while accumulating " + slicer.getUrl(), e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Failed to accumulate " + slicer.getUrl(), cause);
+        }
+        LOGGER.fine("Accumulated " + items.size() + " items for " + slicer.getUrl() + " in " + futures.size() + " chunks");
+        return result;
+    }
+
+    /**
+     * Applies the slice to every item, on several threads if the slicer allows it.
+     * A failure on one item is recorded in its outcome and does not stop the others.
+     * @param progress notified after each item and asked before each item whether to stop, may be null
+     * @return one outcome per item that was processed, in the same order as the items
+     */
+    public static <T, I> List<ItemOutcome<I>> transform(final Slicer<T, I> slicer, final T slice, List<I> items,
+            final Progress<I> progress) {
+        List<ItemOutcome<I>> outcomes = new ArrayList<ItemOutcome<I>>(items.size());
+        if (!AbstractSlicer.of(slicer).isThreadSafe() || TRANSFORM_THREADS <= 1 || items.size() <= 1) {
+            for (I item: items) {
+                if (progress != null && progress.isCancelled()) {
+                    break;
+                }
+                outcomes.add(transformOne(slicer, slice, item, progress));
+            }
+            return outcomes;
+        }
+
+        final Authentication auth = Jenkins.getAuthentication();
+        ExecutorService executor = getTransformExecutor();
+        List<Future<ItemOutcome<I>>> futures = new ArrayList<Future<ItemOutcome<I>>>(items.size());
+        for (final I item: items) {
+            futures.add(executor.submit(new Callable<ItemOutcome<I>>() {
+                public ItemOutcome<I> call() throws Exception {
+                    SecurityContext old = ACL.impersonate(auth);
+                    try {
+                        if (progress != null && progress.isCancelled()) {
+                            return null;
+                        }
+                        return transformOne(slicer, slice, item, progress);
+                    } finally {
+                        SecurityContextHolder.setContext(old);
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                ItemOutcome<I> outcome = futures.get(i).get();
+                if (outcome != null) {
+                    outcomes.add(outcome);
+                }
+            } catch (InterruptedException e) {
+                cancel(futures);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while transforming " + slicer.getUrl(), e);
+            } catch (ExecutionException e) {
+                outcomes.add(ItemOutcome.failed(items.get(i), e.getCause()));
+            }
+        }
+        return outcomes;
+    }
+
+    private static <T, I> ItemOutcome<I> transformOne(Slicer<T, I> slicer, T slice, I item, Progress<I> progress) {
+        ItemOutcome<I> outcome = transformOne(slicer, slice, item);
+        if (progress != null) {
+            progress.completed(outcome);
+        }
+        return outcome;
+    }
+
+    static <T, I> ItemOutcome<I> transformOne(Slicer<T, I> slicer, T slice, I item) {
+        ItemOutcome<I> outcome;
+        boolean[] saved = new boolean[1];
+        long start = System.nanoTime();
+        SliceEvents.Span span = SliceEvents.begin(SliceEvents.SET_VALUES, slicer.getUrl(), item);
+        try {
+            outcome = ItemOutcome.changed(item, ItemBatch.transform(slicer, slice, item, saved));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + item + " after applying " + slicer.getUrl(), e);
+            outcome = ItemOutcome.failed(item, e);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to apply " + slicer.getUrl() + " to " + item, e);
+            outcome = ItemOutcome.failed(item, e);
+        }
+        span.end(outcome.getStatus().name());
+        SlicerMetrics.of(slicer).transformed(outcome, saved[0], System.nanoTime() - start);
+        if (outcome.isChanged()) {
+            // not every spec saves the item, so don't rely on the save listener alone
+            SliceSnapshots.itemChanged(item);
+        }
+        return outcome;
+    }
+
+    /**
+     * Works out which items the submitted slice would change and how, reading only the two
+     * slices.  Nothing is called on the items, so this is split into chunks whether or not the
+     * slicer is thread safe.
+     * @return the items that would change, in the same order as the items
+     */
+    public static <T, I> List<SlicePlan.Entry<I>> plan(Slicer<T, I> slicer, final T original, final T slice, List<I> items) {
+        if (items.isEmpty()) {
+            return new ArrayList<SlicePlan.Entry<I>>();
+        }
+        final AbstractSlicer<T, I> abstractSlicer = AbstractSlicer.of(slicer);
+        // build the slices' lookup structures on this thread, not on every worker at once
+        abstractSlicer.getValueStrings(original, items.get(0));
+        abstractSlicer.getValueStrings(slice, items.get(0));
+        if (ACCUMULATE_THREADS <= 1 || items.size() <= CHUNK_SIZE) {
+            return planChunk(abstractSlicer, original, slice, items);
+        }
+
+        ExecutorService executor = getAccumulateExecutor();
+        List<Future<List<SlicePlan.Entry<I>>>> futures = new ArrayList<Future<List<SlicePlan.Entry<I>>>>();
+        for (int start = 0; start < items.size(); start += CHUNK_SIZE) {
+            final List<I> chunk = items.subList(start, Math.min(items.size(), start + CHUNK_SIZE));
+            futures.add(executor.submit(new Callable<List<SlicePlan.Entry<I>>>() {
+                public List<SlicePlan.Entry<I>> call() throws Exception {
+                    return planChunk(abstractSlicer, original, slice, chunk);
+                }
+            }));
+        }
+        List<SlicePlan.Entry<I>> entries = new ArrayList<SlicePlan.Entry<I>>();
+        try {
+            for (Future<List<SlicePlan.Entry<I>>> future: futures) {
+                entries.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while planning " + slicer.getUrl(), e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Failed to plan " + slicer.getUrl(), cause);
+        }
+        return entries;
+    }
+
+    private static <T, I> List<SlicePlan.Entry<I>> planChunk(AbstractSlicer<T, I> slicer, T original, T slice, List<I> items) {
+        List<SlicePlan.Entry<I>> entries = new ArrayList<SlicePlan.Entry<I>>();
+        for (I item: items) {
+            if (slicer.isChanged(original, slice, item)) {
+                entries.add(new SlicePlan.Entry<I>(item,
+                        slicer.getValueStrings(original, item), slicer.getValueStrings(slice, item)));
+            }
+        }
+        return entries;
+    }
+
+    private static <T, I> T accumulateChunk(Slicer<T, I> slicer, List<I> items) {
+        SlicerMetrics metrics = SlicerMetrics.of(slicer);
+        T accumulator = slicer.getInitialAccumulator();
+        for (I item: items) {
+            long start = System.nanoTime();
+            SliceEvents.Span span = SliceEvents.begin(SliceEvents.GET_VALUES, slicer.getUrl(), item);
+            String outcome = "failed";
+            try {
+                accumulator = slicer.accumulate(accumulator, item);
+                outcome = "ok";
+            } finally {
+                span.end(outcome);
+            }
+            metrics.read(System.nanoTime() - start);
+        }
+        return accumulator;
+    }
+
+    private static void cancel(List<? extends Future<?>> futures) {
+        for (Future<?> future: futures) {
+            future.cancel(true);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.util.List;
 
 /**
  * Handles the problem with Slicers that have class loading issues.
+ * The delegate is only built when it is first needed, not while Jenkins loads extensions.
  * @author jacob
  */
 public abstract class SlicerLoader<T, I> implements Slicer<T, I> {
@@ -11,20 +12,22 @@ public abstract class SlicerLoader<T, I> implements Slicer<T, I> {
 	abstract protected Slicer<T, I> buildDelegateOnConstruction() throws Throwable;
 	
 	private Slicer<T, I> delegate;
-
-	public SlicerLoader() {
-		try {
-			delegate = buildDelegateOnConstruction();
-		} catch (Throwable t) {
-			delegate = null;
-		}
-	}
+	private boolean built;
 
 	public boolean isLoaded() {
+		Slicer<T, I> delegate = getDelegate();
 		return delegate != null && delegate.isLoaded();
 	}
 
-	public Slicer<T, I> getDelegate() {
+	public synchronized Slicer<T, I> getDelegate() {
+		if (!built) {
+			try {
+				delegate = buildDelegateOnConstruction();
+			} catch (Throwable t) {
+				delegate = null;
+			}
+			built = true;
+		}
 		return delegate;
 	}
 
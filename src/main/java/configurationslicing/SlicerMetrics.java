@@ -0,0 +1,201 @@
+package configurationslicing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and timers of one slicer since startup.  Accumulating and transforming are timed
+ * per item, which is where the spec's getValues and setValues run.
+ */
+public class SlicerMetrics {
+
+    private static final ConcurrentMap<String, SlicerMetrics> METRICS = new ConcurrentHashMap<String, SlicerMetrics>();
+
+    private final String url;
+
+    private final AtomicLong initNanos = new AtomicLong();
+    private final AtomicLong snapshotBytes = new AtomicLong(-1);
+
+    private final AtomicLong accumulations = new AtomicLong();
+    private final AtomicLong accumulateNanos = new AtomicLong();
+    private final AtomicLong accumulateMaxNanos = new AtomicLong();
+    private final AtomicLong itemsScanned = new AtomicLong();
+    private final AtomicLong getValuesNanos = new AtomicLong();
+
+    private final AtomicLong applies = new AtomicLong();
+    private final AtomicLong applyNanos = new AtomicLong();
+    private final AtomicLong applyMaxNanos = new AtomicLong();
+    private final AtomicLong itemsTransformed = new AtomicLong();
+    private final AtomicLong setValuesNanos = new AtomicLong();
+    private final AtomicLong itemsChanged = new AtomicLong();
+    private final AtomicLong saves = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    SlicerMetrics(String url) {
+        this.url = url;
+    }
+
+    public static SlicerMetrics of(Slicer<?, ?> slicer) {
+        return of(slicer.getUrl());
+    }
+
+    public static SlicerMetrics of(String url) {
+        SlicerMetrics metrics = METRICS.get(url);
+        if (metrics == null) {
+            SlicerMetrics created = new SlicerMetrics(url);
+            metrics = METRICS.putIfAbsent(url, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the metrics of every slicer that was used since startup, by url
+     */
+    public static List<SlicerMetrics> all() {
+        List<SlicerMetrics> list = new ArrayList<SlicerMetrics>(METRICS.values());
+        Collections.sort(list, new Comparator<SlicerMetrics>() {
+            public int compare(SlicerMetrics m1, SlicerMetrics m2) {
+                return m1.url.compareTo(m2.url);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * The slicer was checked for being loaded, which builds a {@link SlicerLoader}'s delegate.
+     */
+    public void initialized(long nanos) {
+        initNanos.set(nanos);
+    }
+
+    /**
+     * The snapshot was built, and is estimated to hold on to this many bytes.
+     */
+    public void snapshotBuilt(long bytes) {
+        snapshotBytes.set(bytes);
+    }
+
+    /**
+     * A whole accumulation, of any number of items.
+     */
+    public void accumulated(int items, long nanos) {
+        accumulations.incrementAndGet();
+        accumulateNanos.addAndGet(nanos);
+        max(accumulateMaxNanos, nanos);
+        itemsScanned.addAndGet(items);
+    }
+
+    /**
+     * One item was read, outside of a whole accumulation the time is still recorded here.
+     */
+    public void read(long nanos) {
+        getValuesNanos.addAndGet(nanos);
+    }
+
+    /**
+     * A whole apply, of any number of items.
+     */
+    public void applied(long nanos) {
+        applies.incrementAndGet();
+        applyNanos.addAndGet(nanos);
+        max(applyMaxNanos, nanos);
+    }
+
+    public void transformed(ItemOutcome<?> outcome, boolean saved, long nanos) {
+        itemsTransformed.incrementAndGet();
+        setValuesNanos.addAndGet(nanos);
+        if (outcome.isFailed()) {
+            failures.incrementAndGet();
+        } else if (outcome.isChanged()) {
+            itemsChanged.incrementAndGet();
+        }
+        if (saved) {
+            saves.incrementAndGet();
+        }
+    }
+
+    private static void max(AtomicLong max, long value) {
+        long current;
+        while ((current = max.get()) < value) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public double getInitMillis() {
+        return initNanos.get() / 1000000.0;
+    }
+
+    /**
+     * @return the estimated size of the snapshot when it was last built, or -1 if unknown
+     */
+    public long getSnapshotKilobytes() {
+        long bytes = snapshotBytes.get();
+        return bytes < 0 ? -1 : bytes / 1024;
+    }
+
+    public long getAccumulations() {
+        return accumulations.get();
+    }
+
+    public long getAccumulateMillis() {
+        return accumulateNanos.get() / 1000000;
+    }
+
+    public long getAccumulateMaxMillis() {
+        return accumulateMaxNanos.get() / 1000000;
+    }
+
+    public long getItemsScanned() {
+        return itemsScanned.get();
+    }
+
+    public long getGetValuesMillis() {
+        return getValuesNanos.get() / 1000000;
+    }
+
+    public long getApplies() {
+        return applies.get();
+    }
+
+    public long getApplyMillis() {
+        return applyNanos.get() / 1000000;
+    }
+
+    public long getApplyMaxMillis() {
+        return applyMaxNanos.get() / 1000000;
+    }
+
+    public long getItemsTransformed() {
+        return itemsTransformed.get();
+    }
+
+    public long getSetValuesMillis() {
+        return setValuesNanos.get() / 1000000;
+    }
+
+    public long getItemsChanged() {
+        return itemsChanged.get();
+    }
+
+    public long getSaves() {
+        return saves.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+}
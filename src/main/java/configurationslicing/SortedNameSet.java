@@ -0,0 +1,142 @@
+package configurationslicing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The item names that share one value of an {@link UnorderedStringSlice}, kept in a sorted array
+ * rather than a HashSet, which costs several times as much memory per name.  Names are appended
+ * and only sorted when the set is next read, so accumulating stays linear.
+ *
+ * Also holds the one copy of the value that the slice keeps, so that items with equal values
+ * share it rather than each keeping the copy their spec returned.
+ */
+final class SortedNameSet {
+
+    private static final String[] EMPTY = new String[0];
+
+    private final String value;
+    private String[] names = EMPTY;
+    private int size;
+    // names from here on were appended unsorted and may repeat
+    private int sorted;
+
+    SortedNameSet(String value) {
+        this.value = value;
+    }
+
+    SortedNameSet(SortedNameSet other) {
+        synchronized (other) {
+            other.compact();
+            this.value = other.value;
+            this.names = Arrays.copyOf(other.names, other.size);
+            this.size = other.size;
+            this.sorted = other.size;
+        }
+    }
+
+    String getValue() {
+        return value;
+    }
+
+    synchronized void add(String name) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, Math.max(4, size + (size >> 1)));
+        }
+        names[size++] = name;
+    }
+
+    synchronized void addAll(SortedNameSet other) {
+        for (String name: other.toList()) {
+            add(name);
+        }
+    }
+
+    synchronized boolean remove(String name) {
+        compact();
+        int i = Arrays.binarySearch(names, 0, size, name);
+        if (i < 0) {
+            return false;
+        }
+        System.arraycopy(names, i + 1, names, i, size - i - 1);
+        names[--size] = null;
+        sorted = size;
+        return true;
+    }
+
+    /**
+     * Removes the item name and its indexed names like "job[1]".  Those sort together right
+     * after "job[", though names like "job-a" may come between them and "job".
+     * @return true if some name was removed
+     */
+    synchronized boolean removeItem(String itemName) {
+        boolean removed = remove(itemName);
+        String prefix = itemName + "[";
+        int from = Arrays.binarySearch(names, 0, size, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < size && names[to].startsWith(prefix)) {
+            to++;
+        }
+        if (to > from) {
+            System.arraycopy(names, to, names, from, size - to);
+            Arrays.fill(names, size - (to - from), size, null);
+            size -= to - from;
+            sorted = size;
+            removed = true;
+        }
+        return removed;
+    }
+
+    synchronized boolean contains(String name) {
+        compact();
+        return Arrays.binarySearch(names, 0, size, name) >= 0;
+    }
+
+    synchronized int size() {
+        compact();
+        return size;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return a copy of the names, in their natural order
+     */
+    synchronized List<String> toList() {
+        compact();
+        return new ArrayList<String>(Arrays.asList(names).subList(0, size));
+    }
+
+    /**
+     * @return a rough estimate in bytes of this set and its array, not counting the strings
+     */
+    synchronized long getEstimatedSize() {
+        return 32 + 16 + 4L * names.length;
+    }
+
+    private void compact() {
+        if (sorted == size) {
+            return;
+        }
+        // the sorted prefix is one run, so this costs little more than sorting the appended names
+        Arrays.sort(names, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || !names[i].equals(names[unique - 1])) {
+                names[unique++] = names[i];
+            }
+        }
+        Arrays.fill(names, unique, size, null);
+        size = unique;
+        sorted = size;
+        if (names.length - size > size / 4 + 4) {
+            names = Arrays.copyOf(names, size);
+        }
+    }
+}
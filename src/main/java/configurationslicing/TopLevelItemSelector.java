@@ -1,14 +1,9 @@
 package configurationslicing;
 
-import hudson.model.TopLevelItem;
-import jenkins.model.Jenkins;
 import hudson.model.AbstractProject;
-import hudson.model.Hudson;
 
 import java.util.List;
 
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.Predicate;
 /**
  * Helper class to provide all top level items configured in Jenkins, excluding other items
  * held in folders, such as maven modules
@@ -22,20 +17,14 @@ public class TopLevelItemSelector {
     }
     
     /**
-     * Provide all top level items configured in Jenkins 
+     * Provide all top level items configured in Jenkins.  Served from {@link WorkDomainCache},
+     * so only the first call per type walks the ItemGroup tree.
      * @param clazz the type to search the ItemGroup for
      * @return all items in the Jenkins ItemGroup tree which are of type TopLevelItem
      */
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public static List<AbstractProject<?,?>> getAllTopLevelItems(Class clazz) {
-        List<AbstractProject<?,?>> list =  (List)Jenkins.getInstance().getAllItems(clazz);
-        CollectionUtils.filter(list, new Predicate() {
-            public boolean evaluate(Object object) {
-                // exclude MatrixConfiguration, MavenModule, etc
-                return object instanceof TopLevelItem;
-            }
-        });
-        return list;
+        return (List) WorkDomainCache.getTopLevelItems(clazz);
     }
 
 }
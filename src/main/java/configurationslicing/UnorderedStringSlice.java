@@ -10,14 +10,19 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 
+import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.StaplerRequest;
 
 import configurationslicing.UnorderedStringSlicer.UnorderedStringSlicerSpec;
@@ -25,15 +30,21 @@ import configurationslicing.UnorderedStringSlicer.UnorderedStringSlicerSpec;
 public class UnorderedStringSlice<I> extends Slice {
     
     private static final Logger LOGGER = Logger.getLogger(UnorderedStringSlice.class.getName());
-    private Map<String, List<String>> nameToValues;
+    // built lazily from valueToNames for accumulated slices
+    private volatile Map<String, List<String>> nameToValues;
     
-    private Map<String, Set<String>> valueToNames;
+    // value to the names having it
+    private SliceIndex valueToNames;
     private UnorderedStringSlicer.UnorderedStringSlicerSpec<I> spec;
     
     // reconstruct our datastructure after the user has made changes
     public UnorderedStringSlice(UnorderedStringSlicerSpec<I> spec, List<String> configurationValues, List<String> itemNames) {
         this(spec);
-        nameToValues = new HashMap<String, List<String>>();
+        nameToValues = reconstruct(configurationValues, itemNames);
+    }
+    private Map<String, List<String>> reconstruct(List<String> configurationValues, List<String> itemNames) {
+        Map<String, List<String>> nameToValues = new HashMap<String, List<String>>();
+        WorkDomainIndex<I> domainIndex = null;
         for (int i = 0; i < configurationValues.size(); i++) {
         	String value = configurationValues.get(i);
         	if (spec.isValueTrimmed()) {
@@ -41,7 +52,6 @@ public class UnorderedStringSlice<I> extends Slice {
         	}
         	String namesString = itemNames.get(i);
         	String[] namesSplit = namesString.split("\\n");
-        	List<I> workDomain = spec.getWorkDomain();
             for(String itemName : namesSplit) {
             	itemName = itemName.trim();
             	if (itemName.length() > 0) {
@@ -50,13 +60,24 @@ public class UnorderedStringSlice<I> extends Slice {
                 	if (bracket > 0) {
                 		String indexString = itemName.substring(bracket + 1, itemName.length() - 1);
                 		itemName = itemName.substring(0, bracket);
-                		I item = getItem(itemName, workDomain);
+                		if (domainIndex == null) {
+                			domainIndex = WorkDomainIndex.of(spec);
+                		}
+                		I item = getItem(itemName, domainIndex);
                 		index = spec.getValueIndex(item, indexString);
                 	}
             		addLine(nameToValues, itemName, value, index);
             	}
             }
         }
+        return nameToValues;
+    }
+    public I getItem(String name, WorkDomainIndex<I> index) {
+    	I item = index.get(name);
+    	if (item == null) {
+    		throw new IllegalArgumentException(name);
+    	}
+    	return item;
     }
     public I getItem(String name, List<I> workDomain) {
     	for (I item: workDomain) {
@@ -68,27 +89,41 @@ public class UnorderedStringSlice<I> extends Slice {
     }
     
     public UnorderedStringSlice(UnorderedStringSlicerSpec<I> spec) {
-        valueToNames=new HashMap<String, Set<String>>();
+        valueToNames=SliceIndex.create();
         this.spec=spec;
     }
     
     public void add(String name, Collection<String> values) {
+        nameToValues = null;
         for(String value : values) {
         	addLineWithSets(valueToNames, value, name);
         }
     }
 
-    private static void addLineWithSets(Map<String, Set<String>> map, String s, String name) {
+    /**
+     * Takes everything that was added for this item back out, including indexed names like "job[1]".
+     */
+    public void remove(String itemName) {
+    	nameToValues = null;
+    	valueToNames.removeItem(itemName);
+    }
+
+    /**
+     * Folds the values accumulated by another slice into this one.  The other slice is left untouched.
+     */
+    public UnorderedStringSlice<I> merge(UnorderedStringSlice<I> other) {
+    	nameToValues = null;
+    	valueToNames.addAll(other.valueToNames);
+    	return this;
+    }
+
+    private static void addLineWithSets(SliceIndex index, String s, String name) {
         if (null == s) {
             LOGGER.severe("found illegal line with null value for name: "+name);
             // do nothing
             return;
         }
-        if(!map.containsKey(s)) {
-            map.put(s, new HashSet<String>());
-        }
-        Set<String> list= map.get(s);
-        list.add(name);
+        index.add(s, name);
     }
     private static void addLine(Map<String, List<String>> map, String s, String name, int index) {
         if(!map.containsKey(s)) {
@@ -104,7 +139,52 @@ public class UnorderedStringSlice<I> extends Slice {
     }
     
     public List<String> get(String name) {
-        return nameToValues.get(name);
+        return getNameToValues().get(name);
+    }
+
+    /**
+     * An accumulated slice only knows value to names, so build the other direction the same
+     * way a submitted form is read.  That way both sides of a diff are normalized identically.
+     */
+    private Map<String, List<String>> getNameToValues() {
+    	Map<String, List<String>> map = nameToValues;
+    	if (map == null) {
+    		synchronized (this) {
+    			map = nameToValues;
+    			if (map == null) {
+    				List<String> values = valueToNames.getValues();
+    				List<String> names = new ArrayList<String>(values.size());
+    				for (String value: values) {
+    					names.add(getItemNamesString(value));
+    				}
+    				map = reconstruct(values, names);
+    				nameToValues = map;
+    			}
+    		}
+    	}
+    	return map;
+    }
+
+    /**
+     * Compares two value lists the way a user would, ignoring the line ending differences
+     * that browsers introduce when posting textareas.
+     */
+    public static boolean isSameValues(List<String> values1, List<String> values2) {
+    	if (values1.size() != values2.size()) {
+    		return false;
+    	}
+    	for (int i = 0; i < values1.size(); i++) {
+    		if (!StringUtils.equals(normalizeLineEndings(values1.get(i)), normalizeLineEndings(values2.get(i)))) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+    private static String normalizeLineEndings(String value) {
+    	if (value == null) {
+    		return null;
+    	}
+    	return value.replace("\r\n", "\n");
     }
     
     public UnorderedStringSlicerSpec<I> getSpec() {
@@ -112,7 +192,7 @@ public class UnorderedStringSlice<I> extends Slice {
     }
     public List<String> getConfiguredValues() {
     	String defaultValueString = spec.getDefaultValueString();
-    	List<String> list = new ArrayList<String>(valueToNames.keySet());
+    	List<String> list = valueToNames.getValues();
     	if (list.contains(defaultValueString)) {
     		list.remove(defaultValueString);
     	}
@@ -138,8 +218,64 @@ public class UnorderedStringSlice<I> extends Slice {
     	}
     	return list;
     }
-    public String getItemNamesString(String configurationString) {
+    /**
+     * @return the value groups inside the window; the blank row for new items is kept on every page
+     */
+    public List<String> getConfiguredValues(SliceWindow window) {
+    	List<String> all = getConfiguredValues();
+    	if (window == null) {
+    		return all;
+    	}
+    	boolean blank = spec.isBlankNeededForValues() && all.remove("");
+    	List<String> matching = new ArrayList<String>();
+    	for (String value: all) {
+    		if (window.matchesValue(value) && (window.getPrefix() == null || !getItemNames(value, window).isEmpty())) {
+    			matching.add(value);
+    		}
+    	}
+    	List<String> list = new ArrayList<String>(window.page(matching));
+    	if (blank) {
+    		list.add("");
+    	}
+    	return list;
+    }
+    /**
+     * Unlike the form, only lists values that some item actually has.
+     */
+    @Override
+    public Map<String, List<String>> getValueGroups(SliceWindow window) {
+    	List<String> values = valueToNames.getValues();
+    	Collections.sort(values, String.CASE_INSENSITIVE_ORDER);
+    	List<String> matching = new ArrayList<String>();
+    	for (String value: values) {
+    		if (window.matchesValue(value) && (window.getPrefix() == null || !getItemNames(value, window).isEmpty())) {
+    			matching.add(value);
+    		}
+    	}
+    	Map<String, List<String>> groups = new LinkedHashMap<String, List<String>>();
+    	for (String value: window.page(matching)) {
+    		groups.put(value, getItemNames(value, window));
+    	}
+    	return groups;
+    }
+    public String getItemNamesString(String configurationString, SliceWindow window) {
+    	return toLines(getItemNames(configurationString, window));
+    }
+    public List<String> getItemNames(String configurationString, SliceWindow window) {
     	List<String> list = getItemNames(configurationString);
+    	if (window != null && window.getPrefix() != null) {
+    		for (Iterator<String> it = list.iterator(); it.hasNext();) {
+    			if (!window.matchesName(it.next())) {
+    				it.remove();
+    			}
+    		}
+    	}
+    	return list;
+    }
+    public String getItemNamesString(String configurationString) {
+    	return toLines(getItemNames(configurationString));
+    }
+    private static String toLines(List<String> list) {
     	StringBuilder buf = new StringBuilder();
     	for (String job: list) {
     		buf.append(job);
@@ -149,12 +285,8 @@ public class UnorderedStringSlice<I> extends Slice {
     	return buf.toString();
     }
     public List<String> getItemNames(String configurationString) {
-    	Set<String> set = valueToNames.get(configurationString);
-    	if (set == null) {
-        	// particularly applies to the empty option
-    		return new ArrayList<String>();
-    	}
-    	List<String> list = new ArrayList<String>(set);
+    	// empty for values nobody has, which particularly applies to the empty option
+    	List<String> list = valueToNames.getNames(configurationString);
     	Collections.sort(list, String.CASE_INSENSITIVE_ORDER);
     	return list;
     }
@@ -162,14 +294,195 @@ public class UnorderedStringSlice<I> extends Slice {
     @Override
     public Slice newInstance(StaplerRequest req, JSONObject formData)
            throws FormException {
-        return new UnorderedStringSlice<I>(UnorderedStringSlice.this.spec, 
-        		getStringList(formData, "configValue"),
-        		getStringList(formData, "itemNames")
-        		);
+        return newInstance(getStringList(formData, "configValue"),
+        		getStringList(formData, "itemNames"),
+        		SliceWindow.fromForm(formData),
+        		getShown(formData));
+    }
+    /**
+     * Reads the value and item name pairs that a windowed form showed, which it posts back in
+     * hidden <code>shownValue</code> and <code>shownNames</code> fields, one of each per row.
+     * @return the shown item names by value, or null if the form did not post them
+     */
+    Map<String, Set<String>> getShown(JSONObject formData) {
+    	if (formData == null || !formData.has("shownValue") || !formData.has("shownNames")) {
+    		return null;
+    	}
+    	List<String> values = getStringList(formData, "shownValue");
+    	List<String> names = getStringList(formData, "shownNames");
+    	Map<String, Set<String>> shown = new HashMap<String, Set<String>>();
+    	for (int i = 0; i < values.size() && i < names.size(); i++) {
+    		Set<String> set = new HashSet<String>();
+    		for (String name: names.get(i).split("\\n")) {
+    			name = name.trim();
+    			if (name.length() > 0) {
+    				set.add(name);
+    			}
+    		}
+    		shown.put(normalizeLineEndings(values.get(i)), set);
+    	}
+    	return shown;
+    }
+    protected UnorderedStringSlice<I> newInstance(List<String> configurationValues, List<String> itemNames, SliceWindow window) {
+    	return newInstance(configurationValues, itemNames, window, null);
+    }
+    /**
+     * Builds the submitted slice.  If the form only showed a window of this slice, the
+     * value and name pairs it did not show are carried over unchanged.
+     * @param shown the item names the form showed for each value; if null, they are worked out from
+     *        this slice and the window, which misses items added or renamed since the form was rendered
+     */
+    protected UnorderedStringSlice<I> newInstance(List<String> configurationValues, List<String> itemNames, SliceWindow window,
+    		Map<String, Set<String>> shown) {
+    	Set<String> selected = new HashSet<String>();
+    	itemNames = expandSelectors(configurationValues, itemNames, selected);
+    	if (window.isAll()) {
+    		return new UnorderedStringSlice<I>(spec, configurationValues, itemNames);
+    	}
+    	if (shown == null) {
+    		shown = new HashMap<String, Set<String>>();
+    		for (String value: getConfiguredValues(window)) {
+    			shown.put(normalizeLineEndings(value), new HashSet<String>(getItemNames(value, window)));
+    		}
+    	}
+    	UnorderedStringSlice<I> slice = new UnorderedStringSlice<I>(spec);
+    	for (String value: valueToNames.getValues()) {
+    		Set<String> shownNames = shown.get(normalizeLineEndings(value));
+    		for (String name: valueToNames.getNames(value)) {
+    			// items picked by a selector get the selector's value, wherever they were before
+    			if ((shownNames == null || !shownNames.contains(name)) && !selected.contains(SliceIndex.getItemName(name))) {
+    				slice.add(name, Collections.singletonList(value));
+    			}
+    		}
+    	}
+    	for (int i = 0; i < configurationValues.size(); i++) {
+    		for (String name: itemNames.get(i).split("\\n")) {
+    			name = name.trim();
+    			if (name.length() > 0) {
+    				slice.add(name, Collections.singletonList(configurationValues.get(i)));
+    			}
+    		}
+    	}
+    	return slice;
+    }
+    /**
+     * Replaces {@link ItemSelector} lines in the submitted item names with the names of the items they
+     * match.  A name the user moved to another row, or added, wins over any selector matching it; a name
+     * still in the row of its original value is taken out of that row by a selector matching it, so that
+     * a selector row can be added to the page as it was rendered.
+     * @param selected receives the names that selectors matched
+     * @throws IllegalArgumentException if a selector is also the name of an item, if selectors in different
+     *         rows match the same item, or if a regular expression is invalid
+     */
+    List<String> expandSelectors(List<String> configurationValues, List<String> itemNames, Set<String> selected) {
+    	boolean found = false;
+    	for (String names: itemNames) {
+    		for (String line: names.split("\\n")) {
+    			if (ItemSelector.isSelector(line.trim())) {
+    				found = true;
+    			}
+    		}
+    	}
+    	if (!found) {
+    		return itemNames;
+    	}
+    	Map<String, String> originalValues = new HashMap<String, String>();
+    	for (String value: valueToNames.getValues()) {
+    		originalValues.put(getValueKey(value), value);
+    	}
+    	// items with a name the user moved to another row or added
+    	Set<String> moved = new HashSet<String>();
+    	for (int i = 0; i < itemNames.size(); i++) {
+    		String original = originalValues.get(getValueKey(configurationValues.get(i)));
+    		Set<String> originalNames = original == null ? Collections.<String>emptySet()
+    				: new HashSet<String>(valueToNames.getNames(original));
+    		for (String line: itemNames.get(i).split("\\n")) {
+    			line = line.trim();
+    			if (line.length() == 0 || ItemSelector.isSelector(line)) {
+    				continue;
+    			}
+    			if (!originalNames.contains(line)) {
+    				moved.add(SliceIndex.getItemName(line));
+    			}
+    		}
+    	}
+    	Set<String> domain = WorkDomainIndex.of(spec).getNames();
+    	List<Set<String>> matched = new ArrayList<Set<String>>(itemNames.size());
+    	Map<String, Integer> matchedRows = new HashMap<String, Integer>();
+    	for (int i = 0; i < itemNames.size(); i++) {
+    		Set<String> rowMatches = new LinkedHashSet<String>();
+    		for (String line: itemNames.get(i).split("\\n")) {
+    			line = line.trim();
+    			if (!ItemSelector.isSelector(line)) {
+    				continue;
+    			}
+    			if (domain.contains(line)) {
+    				throw new IllegalArgumentException("'" + line + "' is both the name of an item and a selector");
+    			}
+    			Pattern pattern = ItemSelector.compile(line);
+    			for (String name: domain) {
+    				if (moved.contains(name) || !pattern.matcher(name).matches()) {
+    					continue;
+    				}
+    				Integer row = matchedRows.put(name, i);
+    				if (row != null && row != i) {
+    					throw new IllegalArgumentException("'" + name + "' is matched by selectors in more than one row");
+    				}
+    				rowMatches.add(name);
+    			}
+    		}
+    		matched.add(rowMatches);
+    	}
+    	selected.addAll(matchedRows.keySet());
+    	List<String> expanded = new ArrayList<String>(itemNames.size());
+    	for (int i = 0; i < itemNames.size(); i++) {
+    		StringBuilder buf = new StringBuilder();
+    		for (String line: itemNames.get(i).split("\\n")) {
+    			String name = line.trim();
+    			// unmoved names a selector took are left out; moved names never are selected
+    			if (!ItemSelector.isSelector(name) && !selected.contains(SliceIndex.getItemName(name))) {
+    				buf.append(line).append('\n');
+    			}
+    		}
+    		for (String name: matched.get(i)) {
+    			buf.append(name).append('\n');
+    		}
+    		expanded.add(buf.toString());
+    	}
+    	return expanded;
+    }
+
+    private String getValueKey(String value) {
+    	value = normalizeLineEndings(value);
+    	return spec.isValueTrimmed() ? value.trim() : value;
     }
+
+    @Override
+    public long getEstimatedSize() {
+    	long size = valueToNames.getEstimatedSize();
+    	Map<String, List<String>> map = nameToValues;
+    	if (map != null) {
+    		size += SliceIndex.MAP_SIZE;
+    		for (List<String> values: map.values()) {
+    			size += SliceIndex.ENTRY_SIZE + SliceIndex.LIST_SIZE + 4L * values.size();
+    		}
+    	}
+    	return size;
+    }
+
+    /**
+     * A form with a single row, as a filtered or paged form may have, posts its fields as plain strings
+     * rather than arrays; those are read as a list of one.
+     */
     List<String> getStringList(JSONObject formData, String key) {
-    	JSONArray array = formData.getJSONArray(key);
     	List<String> list = new ArrayList<String>();
+    	JSONArray array = formData.optJSONArray(key);
+    	if (array == null) {
+    		if (formData.has(key)) {
+    			list.add(formData.getString(key));
+    		}
+    		return list;
+    	}
     	for (Object o: array) {
     		list.add((String) o);
     	}
@@ -3,7 +3,7 @@ package configurationslicing;
 import java.util.ArrayList;
 import java.util.List;
 
-public class UnorderedStringSlicer<I> implements Slicer<UnorderedStringSlice<I>, I>{
+public class UnorderedStringSlicer<I> extends IncrementalSlicer<UnorderedStringSlice<I>, I>{
     public static abstract class UnorderedStringSlicerSpec<I> {
         public abstract String getName();
         public abstract String getUrl();
@@ -45,6 +45,22 @@ public class UnorderedStringSlicer<I> implements Slicer<UnorderedStringSlice<I>,
         public boolean isValueTrimmed() {
         	return true;
         }
+        
+        /**
+         * Override this to return true once getValues and setValues have been checked to only
+         * touch the item they are given, so they can be called for different items from several threads at once.
+         */
+        public boolean isThreadSafe() {
+        	return false;
+        }
+
+        /**
+         * Override this to return true once getValues alone has been checked, so that the slice is
+         * read on several threads even if setValues is not safe for that.
+         */
+        public boolean isAccumulateThreadSafe() {
+        	return isThreadSafe();
+        }
     }
 
     private UnorderedStringSlicerSpec<I> spec;
@@ -92,6 +108,38 @@ public class UnorderedStringSlicer<I> implements Slicer<UnorderedStringSlice<I>,
     	}
         return t;
     }
+    @Override
+    public UnorderedStringSlice<I> remove(UnorderedStringSlice<I> t, I item) {
+    	t.remove(spec.getName(item));
+    	return t;
+    }
+    @Override
+    public UnorderedStringSlice<I> combine(UnorderedStringSlice<I> t1, UnorderedStringSlice<I> t2) {
+    	return t1.merge(t2);
+    }
+    @Override
+    public boolean isThreadSafe() {
+    	return spec.isThreadSafe();
+    }
+    @Override
+    public boolean isAccumulateThreadSafe() {
+    	return spec.isAccumulateThreadSafe();
+    }
+    @Override
+    public boolean isChanged(UnorderedStringSlice<I> original, UnorderedStringSlice<I> t, I i) {
+    	String name = spec.getName(i);
+    	List<String> newValues = t.get(name);
+    	if (newValues == null) {
+    		// transform would not touch it anyway
+    		return false;
+    	}
+    	List<String> oldValues = original.get(name);
+    	return oldValues == null || !UnorderedStringSlice.isSameValues(oldValues, newValues);
+    }
+    @Override
+    public List<String> getValueStrings(UnorderedStringSlice<I> t, I i) {
+    	return t.get(spec.getName(i));
+    }
     public boolean transform(UnorderedStringSlice<I> t, I i) {
     	List<String> set = t.get(spec.getName(i));
     	if (set == null) {
@@ -110,7 +158,7 @@ public class UnorderedStringSlicer<I> implements Slicer<UnorderedStringSlice<I>,
     }
 
     public List<I> getWorkDomain() {
-        return spec.getWorkDomain();
+        return WorkDomainIndex.of(spec).getItems();
     }
 
     public int compareTo(Slicer<UnorderedStringSlice<I>, I> o) {
@@ -0,0 +1,152 @@
+package configurationslicing;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.TopLevelItem;
+import hudson.model.listeners.ItemListener;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+
+/**
+ * Caches the top level items of each requested type, so that opening a slice does not
+ * walk every folder.  The cached lists are kept current by {@link Listener}.
+ *
+ * Items are collected as SYSTEM, which is fine because slicing requires ADMINISTER anyway.
+ */
+public class WorkDomainCache {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkDomainCache.class.getName());
+
+    private static final Map<Class<?>, List<Item>> CACHE = new HashMap<Class<?>, List<Item>>();
+
+    // bumped on every event, so that a walk racing with an event is not cached
+    private static long generation;
+
+    // private constructor since we don't expect this class to be instantiated
+    private WorkDomainCache() {
+    }
+
+    /**
+     * @return a copy of all top level items of this type, which the caller may modify
+     */
+    public static List<Item> getTopLevelItems(Class<?> clazz) {
+        long startGeneration;
+        synchronized (WorkDomainCache.class) {
+            List<Item> cached = CACHE.get(clazz);
+            if (cached != null) {
+                return new ArrayList<Item>(cached);
+            }
+            startGeneration = generation;
+        }
+
+        // walk outside of the lock, so item events are not held up by it
+        List<Item> items = walk(clazz);
+        synchronized (WorkDomainCache.class) {
+            if (startGeneration == generation) {
+                CACHE.put(clazz, items);
+            }
+        }
+        return new ArrayList<Item>(items);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static List<Item> walk(Class<?> clazz) {
+        SecurityContext old = ACL.impersonate(ACL.SYSTEM);
+        try {
+            List<Item> items = new ArrayList<Item>();
+            for (Item item: (List<Item>) Jenkins.getInstance().getAllItems((Class) clazz)) {
+                // exclude MatrixConfiguration, MavenModule, etc
+                if (item instanceof TopLevelItem) {
+                    items.add(item);
+                }
+            }
+            return items;
+        } finally {
+            SecurityContextHolder.setContext(old);
+        }
+    }
+
+    public static synchronized void invalidate() {
+        generation++;
+        CACHE.clear();
+    }
+
+    static synchronized void onCreated(Item item) {
+        if (!(item instanceof TopLevelItem)) {
+            return;
+        }
+        if (item instanceof ItemGroup) {
+            // a copied or created folder can bring its own children along
+            invalidate();
+            return;
+        }
+        generation++;
+        for (Map.Entry<Class<?>, List<Item>> entry: CACHE.entrySet()) {
+            if (entry.getKey().isInstance(item)) {
+                entry.getValue().add(item);
+            }
+        }
+    }
+
+    static synchronized void onDeleted(Item item) {
+        if (item instanceof ItemGroup) {
+            invalidate();
+            return;
+        }
+        generation++;
+        for (List<Item> items: CACHE.values()) {
+            for (Iterator<Item> it = items.iterator(); it.hasNext();) {
+                if (it.next() == item) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    static synchronized void onLocationChanged(Item item, String oldFullName, String newFullName) {
+        String oldParent = getParentName(oldFullName);
+        String newParent = getParentName(newFullName);
+        if (item instanceof ItemGroup || !oldParent.equals(newParent)) {
+            // moves may replace the item instance, and folders take their children along
+            invalidate();
+        }
+        // a plain rename keeps the same instance, so the cached lists are still right
+    }
+
+    private static String getParentName(String fullName) {
+        int slash = fullName.lastIndexOf('/');
+        return slash < 0 ? "" : fullName.substring(0, slash);
+    }
+
+    @Extension
+    public static class Listener extends ItemListener {
+        @Override
+        public void onCreated(Item item) {
+            WorkDomainCache.onCreated(item);
+        }
+        @Override
+        public void onDeleted(Item item) {
+            WorkDomainCache.onDeleted(item);
+        }
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            WorkDomainCache.onLocationChanged(item, oldFullName, newFullName);
+        }
+        @Override
+        public void onLoaded() {
+            LOGGER.fine("Items (re)loaded, dropping cached work domains");
+            invalidate();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package configurationslicing;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest;
+
+import configurationslicing.BooleanSlicer.BooleanSlicerSpec;
+import configurationslicing.UnorderedStringSlicer.UnorderedStringSlicerSpec;
+
+/**
+ * The work domain of a spec together with a full name to item lookup.
+ * It is built at most once per HTTP request and shared by everything that needs it while
+ * handling that request: accumulation, form reconstruction and transform.
+ */
+public class WorkDomainIndex<I> {
+
+    private final List<I> items;
+    private final Map<String, I> byName;
+
+    public WorkDomainIndex(List<I> items, Map<String, I> byName) {
+        this.items = Collections.unmodifiableList(items);
+        this.byName = byName;
+    }
+
+    public List<I> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the item with this full name, or null
+     */
+    public I get(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @return the full names of all items
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(byName.keySet());
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public static <I> WorkDomainIndex<I> of(final UnorderedStringSlicerSpec<I> spec) {
+        return of(spec.getUrl(), new Domain<I>() {
+            public List<I> getWorkDomain() {
+                return spec.getWorkDomain();
+            }
+            public String getName(I item) {
+                return spec.getName(item);
+            }
+        });
+    }
+
+    public static <I> WorkDomainIndex<I> of(final BooleanSlicerSpec<I> spec) {
+        return of(spec.getUrl(), new Domain<I>() {
+            public List<I> getWorkDomain() {
+                return spec.getWorkDomain();
+            }
+            public String getName(I item) {
+                return spec.getName(item);
+            }
+        });
+    }
+
+    /**
+     * The two parts of a spec an index is built from; the specs have no common type.
+     */
+    private interface Domain<I> {
+        List<I> getWorkDomain();
+        String getName(I item);
+    }
+
+    private static <I> WorkDomainIndex<I> of(String url, Domain<I> domain) {
+        WorkDomainIndex<I> index = getCached(url);
+        if (index == null) {
+            List<I> items = domain.getWorkDomain();
+            Map<String, I> byName = new HashMap<String, I>(items.size() * 2);
+            for (I item: items) {
+                byName.put(domain.getName(item), item);
+            }
+            index = cache(url, new WorkDomainIndex<I>(items, byName));
+        }
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <I> WorkDomainIndex<I> getCached(String url) {
+        StaplerRequest req = Stapler.getCurrentRequest();
+        if (req == null) {
+            return null;
+        }
+        return (WorkDomainIndex<I>) req.getAttribute(getAttributeName(url));
+    }
+
+    private static <I> WorkDomainIndex<I> cache(String url, WorkDomainIndex<I> index) {
+        // outside of a request (background threads, tests) there is nothing to scope it to
+        StaplerRequest req = Stapler.getCurrentRequest();
+        if (req != null) {
+            req.setAttribute(getAttributeName(url), index);
+        }
+        return index;
+    }
+
+    private static String getAttributeName(String url) {
+        return WorkDomainIndex.class.getName() + "." + url;
+    }
+}
@@ -14,6 +14,14 @@ public class BlockBuildWhenDownstreamBuildingBoolSlicer extends BooleanSlicer<Ab
     public BlockBuildWhenDownstreamBuildingBoolSlicer() {
         super(new BlockBuildWhenDownstreamBuildingSpec());
     }
+
+    /**
+     * setBlockBuildWhenDownstreamBuilding only sets a field of the project and saves it.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
     
     public static class BlockBuildWhenDownstreamBuildingSpec implements BooleanSlicer.BooleanSlicerSpec<AbstractProject<?,?>>
     {
@@ -14,6 +14,14 @@ public class BlockBuildWhenUpstreamBuildingBoolSlicer extends BooleanSlicer<Abst
     public BlockBuildWhenUpstreamBuildingBoolSlicer() {
         super(new BlockBuildWhenUpstreamBuildingSpec());
     }
+
+    /**
+     * setBlockBuildWhenUpstreamBuilding only sets a field of the project and saves it.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
     
     public static class BlockBuildWhenUpstreamBuildingSpec implements BooleanSlicer.BooleanSlicerSpec<AbstractProject<?,?>>
     {
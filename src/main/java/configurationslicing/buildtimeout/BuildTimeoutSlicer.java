@@ -59,6 +59,14 @@ public class BuildTimeoutSlicer extends UnorderedStringSlicer<AbstractProject<?,
             return TopLevelItemSelector.getAllTopLevelItems(BuildableItemWithBuildWrappers.class);
         }
 
+        /**
+         * getValues only reads the wrappers list, which is copied on write, and uses its own XStream.
+         */
+        @Override
+        public boolean isAccumulateThreadSafe() {
+            return true;
+        }
+
         @Override
         public List<String> getValues(AbstractProject<?, ?> item) {
             XStream2 xs = getXStream();
@@ -44,6 +44,13 @@ public class CustomWorkspaceStringSlicer extends AbstractSimpleProjectSlicer {
        			project.setCustomWorkspace(value);
         	}
         }
+        /**
+         * setCustomWorkspace only sets a field of the project and saves it.
+         */
+        @Override
+        public boolean isThreadSafe() {
+        	return true;
+        }
 
     }
 }
@@ -13,6 +13,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import configurationslicing.ItemBatch;
 import configurationslicing.UnorderedStringSlicer;
 
 /**
@@ -40,6 +41,14 @@ public abstract class AbstractBuildCommandSlicer<B extends Builder> extends Unor
         public boolean isIndexUsed(int count) {
         	return count > 1;
         }
+
+        /**
+         * getValues only reads the project's builders list, which is copied on write.
+         */
+        @Override
+        public boolean isAccumulateThreadSafe() {
+        	return true;
+        }
         
         public List<String> getValues(AbstractProject<?, ?> item) {
             List<String> content = new ArrayList<String>();
@@ -110,6 +119,7 @@ public abstract class AbstractBuildCommandSlicer<B extends Builder> extends Unor
             for (int i = 0; i < maxLen; i++) {
 				if (oldBuilders[i] != null && newBuilders[i] != null && oldBuilders[i] != newBuilders[i]) {
 					replaceBuilder(buildersList, oldBuilders[i], newBuilders[i]);
+					ItemBatch.saveRequested();
 				}
 			}
             
@@ -117,14 +127,16 @@ public abstract class AbstractBuildCommandSlicer<B extends Builder> extends Unor
             for (int i = 0; i < maxLen; i++) {
 				if (oldBuilders[i] == null && newBuilders[i] != null) {
 				    buildersList.add(newBuilders[i]);
+				    ItemBatch.saveRequested();
 				}
 			}
             
             // delete any old ones
             for (int i = 0; i < maxLen; i++) {
                 if (oldBuilders[i] != null && newBuilders[i] == null) {
-                    // the remove command will persist the project
+                    // the remove command will persist the project, unless we are inside a batch
                     buildersList.remove(oldBuilders[i]);
+                    ItemBatch.saveRequested();
                 }
             }
             
@@ -14,6 +14,14 @@ public class JobDisabledBoolSlicer extends BooleanSlicer<AbstractProject<?,?>> {
     public JobDisabledBoolSlicer() {
         super(new JobDisabledSpec());
     }
+
+    /**
+     * makeDisabled sets the project's own flag and saves it; cancelling it in the queue is synchronized by the queue.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
     public static class JobDisabledSpec implements BooleanSlicer.BooleanSlicerSpec<AbstractProject<?,?>>
     {
         public String getName() {
@@ -68,5 +68,14 @@ public class LabelSlicer extends UnorderedStringSlicer<AbstractProject<?,?>>{
                 return false;
             }
         }
+
+        /**
+         * setAssignedLabel only sets the project's own fields before saving it,
+         * and Jenkins.getLabel is safe to call concurrently.
+         */
+        @Override
+        public boolean isThreadSafe() {
+        	return true;
+        }
     }
 }
@@ -3,12 +3,14 @@ package configurationslicing.maven;
 import hudson.Extension;
 import hudson.maven.MavenModuleSet;
 import hudson.model.Hudson;
-import jenkins.model.Jenkins;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.commons.lang.StringUtils;
+
+import configurationslicing.TopLevelItemSelector;
 import configurationslicing.UnorderedStringSlicer;
 
 @Extension
@@ -52,17 +54,17 @@ public class MavenGoals extends UnorderedStringSlicer<MavenModuleSet> {
 
         @SuppressWarnings("unchecked")
 		public List<MavenModuleSet> getWorkDomain() {
-            return (List) Jenkins.getInstance().getAllItems(MavenModuleSet.class);
+            return (List) TopLevelItemSelector.getAllTopLevelItems(MavenModuleSet.class);
         }
 
         public boolean setValues(MavenModuleSet item, List<String> set) {
             if(set.isEmpty()) return false;
             String value = set.iterator().next();
-            if(DEFAULT.equalsIgnoreCase(value)) {
-                item.setGoals(null);
-            } else {
-                item.setGoals(value);
+            String goals = DEFAULT.equalsIgnoreCase(value) ? null : value;
+            if (StringUtils.equals(goals, item.getUserConfiguredGoals())) {
+                return false;
             }
+            item.setGoals(goals);
             try {
                 item.save();
             } catch (IOException e) {
@@ -3,10 +3,11 @@ package configurationslicing.maven;
 import hudson.Extension;
 import hudson.maven.MavenModuleSet;
 
+import java.io.IOException;
 import java.util.List;
 
-import jenkins.model.Jenkins;
 import configurationslicing.BooleanSlicer;
+import configurationslicing.TopLevelItemSelector;
 
 @Extension
 public class MavenIncremental extends BooleanSlicer<MavenModuleSet> {
@@ -31,7 +32,7 @@ public class MavenIncremental extends BooleanSlicer<MavenModuleSet> {
 
         @SuppressWarnings("unchecked")
 		public List<MavenModuleSet> getWorkDomain() {
-            return (List) Jenkins.getInstance().getAllItems(MavenModuleSet.class);
+            return (List) TopLevelItemSelector.getAllTopLevelItems(MavenModuleSet.class);
         }
 
 		@Override
@@ -41,7 +42,15 @@ public class MavenIncremental extends BooleanSlicer<MavenModuleSet> {
 
 		@Override
 		public boolean setValue(MavenModuleSet item, boolean value) {
+			if (item.isIncrementalBuild() == value) {
+				return false;
+			}
 			item.setIncrementalBuild(value);
+			try {
+				item.save();
+			} catch (IOException e) {
+				return false;
+			}
 			return true;
 		}
         
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import configurationslicing.TopLevelItemSelector;
 import configurationslicing.UnorderedStringSlicer;
 
 @Extension
@@ -53,12 +54,15 @@ public class MavenOptsSlicer extends UnorderedStringSlicer<MavenModuleSet> {
 
         @SuppressWarnings("unchecked")
 		public List<MavenModuleSet> getWorkDomain() {
-            return (List) Jenkins.getInstance().getAllItems(MavenModuleSet.class);
+            return (List) TopLevelItemSelector.getAllTopLevelItems(MavenModuleSet.class);
         }
 
         public boolean setValues(MavenModuleSet item, List<String> set) {
             if(set.isEmpty()) return false;
             String value = set.iterator().next();
+            if (value.equals(item.getMavenOpts())) {
+                return false;
+            }
             DescriptorImpl descriptor =
                     Jenkins.getInstance().getDescriptorByType(MavenModuleSet.DescriptorImpl.class);
             if(value.equals(descriptor.getGlobalMavenOpts())) {
@@ -35,6 +35,13 @@ public class QuietPeriodSlicer extends AbstractSimpleProjectSlicer {
         	}
        		project.setQuietPeriod(q);
         }
+        /**
+         * setQuietPeriod only sets a field of the project and saves it.
+         */
+        @Override
+        public boolean isThreadSafe() {
+        	return true;
+        }
     }
 
 }
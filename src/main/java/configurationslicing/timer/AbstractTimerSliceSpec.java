@@ -9,6 +9,7 @@ import java.util.Collections;
 import java.util.List;
 
 import antlr.ANTLRException;
+import configurationslicing.ItemBatch;
 import configurationslicing.TopLevelItemSelector;
 import configurationslicing.UnorderedStringSlicer.UnorderedStringSlicerSpec;
 
@@ -80,12 +81,15 @@ public abstract class AbstractTimerSliceSpec extends
 			}
 			if (oldTrigger != null) {
 				item.removeTrigger(oldTrigger.getDescriptor());
+				ItemBatch.saveRequested();
 			}
 			if (newtrigger != null) {
 				item.addTrigger(newtrigger);
+				ItemBatch.saveRequested();
 				// this is necessary, otherwise the trigger has a null job
 				// this method as currently implemented in Trigger does nothing more than save the job
 				newtrigger.start(item, true);
+				ItemBatch.saveRequested();
 			}
 			return true;
 		} catch (ANTLRException e) {
@@ -0,0 +1,78 @@
+package configurationslicing.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import configurationslicing.SliceEvents;
+
+/**
+ * Flight Recorder events for {@link SliceEvents}.  Only compiled by the <code>jfr</code> profile.
+ */
+public class JfrSliceEvents implements SliceEvents.Recorder {
+
+    public SliceEvents.Span begin(String type, String url, String item) {
+        final SliceEvent event;
+        if (SliceEvents.ACCUMULATE.equals(type)) {
+            event = new AccumulateEvent();
+        } else if (SliceEvents.GET_VALUES.equals(type)) {
+            event = new GetValuesEvent();
+        } else if (SliceEvents.SET_VALUES.equals(type)) {
+            event = new SetValuesEvent();
+        } else if (SliceEvents.SAVE.equals(type)) {
+            event = new SaveEvent();
+        } else {
+            return null;
+        }
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.slicer = url;
+        event.item = item;
+        event.begin();
+        return new SliceEvents.Span() {
+            public void end(String outcome) {
+                event.outcome = outcome;
+                event.commit();
+            }
+        };
+    }
+
+    @Category({ "Jenkins", "Configuration Slicing" })
+    abstract static class SliceEvent extends Event {
+        @Label("Slicer")
+        String slicer;
+
+        @Label("Item")
+        String item;
+
+        @Label("Outcome")
+        String outcome;
+    }
+
+    @Name("configurationslicing.Accumulate")
+    @Label("Slice Accumulation")
+    @Description("Reading one slicer's values from its whole work domain")
+    static class AccumulateEvent extends SliceEvent {
+    }
+
+    @Name("configurationslicing.GetValues")
+    @Label("Slice Get Values")
+    @Description("Reading the values of one item")
+    static class GetValuesEvent extends SliceEvent {
+    }
+
+    @Name("configurationslicing.SetValues")
+    @Label("Slice Set Values")
+    @Description("Applying a slice to one item")
+    static class SetValuesEvent extends SliceEvent {
+    }
+
+    @Name("configurationslicing.Save")
+    @Label("Slice Save")
+    @Description("Writing one item's configuration after it was changed")
+    static class SaveEvent extends SliceEvent {
+    }
+}
@@ -0,0 +1,142 @@
+package configurationslicing;
+
+import hudson.XmlFile;
+import hudson.model.AbstractProject;
+import hudson.model.FreeStyleProject;
+import hudson.model.ManagementLink;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jvnet.hudson.test.HudsonTestCase;
+import org.jvnet.hudson.test.TestExtension;
+
+import configurationslicing.jobdisabled.JobDisabledBoolSlicer;
+
+public class ConfigurationSlicingTest extends HudsonTestCase {
+
+	@SuppressWarnings("rawtypes")
+	public void testAxesAreBuiltOnce() {
+		ConfigurationSlicing slicing = ManagementLink.all().get(ConfigurationSlicing.class);
+		List<Slicer> axes = slicing.getAxes();
+		assertFalse(axes.isEmpty());
+		assertSame(axes, slicing.getAxes());
+
+		for (Slicer slicer: axes) {
+			assertSame(slicer, slicing.getSlicer(slicer.getUrl()));
+		}
+		assertNull(slicing.getSlicer("no-such-slicer"));
+	}
+
+	public void testMatrix() throws Exception {
+		FreeStyleProject a = createFreeStyleProject("a-job");
+		a.disable();
+		createFreeStyleProject("b-job");
+
+		String page = new WebClient().goTo("slicing/matrix/?slicers=labelslicestring&slicers=jobdisabledbool&prefix=a")
+				.getWebResponse().getContentAsString();
+		assertTrue(page.contains("a-job"));
+		assertTrue(page.contains("(Roaming)"));
+		assertTrue(page.contains("true"));
+		assertFalse(page.contains("b-job"));
+	}
+
+	@SuppressWarnings("rawtypes")
+	public void testExport() throws Exception {
+		FreeStyleProject a = createFreeStyleProject("a-job");
+		a.disable();
+		ConfigurationSlicing slicing = ManagementLink.all().get(ConfigurationSlicing.class);
+		List<Slicer> slicers = Arrays.<Slicer>asList(slicing.getSlicer("labelslicestring"), slicing.getSlicer("jobdisabledbool"));
+
+		StringWriter csv = new StringWriter();
+		assertEquals(2, new SliceExport(slicers, false).write(new PrintWriter(csv)));
+		assertEquals("job,slicer,index,value\r\n"
+				+ "a-job,labelslicestring,0,(Roaming)\r\n"
+				+ "a-job,jobdisabledbool,0,true\r\n", csv.toString());
+
+		StringWriter json = new StringWriter();
+		new SliceExport(slicers, true).write(new PrintWriter(json));
+		assertTrue(json.toString().contains("{\"item\":\"a-job\",\"slicer\":\"jobdisabledbool\",\"index\":0,\"value\":true}\n"));
+	}
+
+	public void testImport() throws Exception {
+		FreeStyleProject a = createFreeStyleProject("a-job");
+		FreeStyleProject b = createFreeStyleProject("b-job");
+		ConfigurationSlicing slicing = ManagementLink.all().get(ConfigurationSlicing.class);
+
+		SliceImport slicesImport = new SliceImport(slicing);
+		slicesImport.read(new StringReader("job,slicer,index,value\r\n"
+				+ "a-job,labelslicestring,0,linux\r\n"
+				+ "a-job,jobdisabledbool,0,true\r\n"
+				+ "b-job,jobdisabledbool,0,maybe\r\n"
+				+ "c-job,jobdisabledbool,0,true\r\n"));
+
+		assertEquals("linux", a.getAssignedLabelString());
+		assertTrue(a.isDisabled());
+		assertFalse(b.isDisabled());
+		assertEquals(4, slicesImport.getRecords());
+		assertEquals(2, slicesImport.getJobs());
+		assertEquals(1, slicesImport.getChanged());
+		// the bad value and the missing job
+		assertEquals(2, slicesImport.getFailed());
+		assertEquals(2, slicesImport.getErrors().size());
+	}
+
+	public void testUnchangedJobIsNotSaved() throws Exception {
+		FreeStyleProject a = createFreeStyleProject("a-job");
+		JobDisabledBoolSlicer slicer = new JobDisabledBoolSlicer();
+		BooleanSlice<AbstractProject<?,?>> slice = slicer.getInitialAccumulator();
+		slice.add("a-job", false);
+		SaveCounter.saves = 0;
+
+		assertFalse(ItemBatch.transform(slicer, slice, a));
+		assertEquals(0, SaveCounter.saves);
+
+		slice.add("a-job", true);
+		assertTrue(ItemBatch.transform(slicer, slice, a));
+		assertEquals(1, SaveCounter.saves);
+	}
+
+	public void testModifiedJobIsSavedEvenIfReportedUnchanged() throws Exception {
+		final FreeStyleProject a = createFreeStyleProject("a-job");
+		SaveCounter.saves = 0;
+
+		// like a spec that rewrote part of the item before rejecting the rest
+		assertFalse(ItemBatch.run(a, new ItemBatch.Change() {
+			public boolean apply() {
+				try {
+					a.setDescription("edited");
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+				return false;
+			}
+		}));
+		assertEquals(1, SaveCounter.saves);
+		assertTrue(a.getConfigFile().asString().contains("edited"));
+	}
+
+	@TestExtension
+	public static class SaveCounter extends SaveableListener {
+		static int saves;
+		@Override
+		public void onChange(Saveable o, XmlFile file) {
+			if (o instanceof FreeStyleProject) {
+				saves++;
+			}
+		}
+	}
+
+	public void testCsvQuoting() {
+		assertEquals("plain", SliceExport.csv("plain"));
+		assertEquals("\"a,b\"", SliceExport.csv("a,b"));
+		assertEquals("\"say \"\"hi\"\"\"", SliceExport.csv("say \"hi\""));
+		assertEquals("\"two\nlines\"", SliceExport.csv("two\nlines"));
+	}
+}
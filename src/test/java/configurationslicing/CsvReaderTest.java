@@ -0,0 +1,45 @@
+package configurationslicing;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class CsvReaderTest extends TestCase {
+
+	public void testRecords() throws Exception {
+		CsvReader csv = new CsvReader(new StringReader(
+				"job,slicer,index,value\r\n"
+				+ "a,shell,0,\"make \"\"all\"\"\nmake test\"\r\n"
+				+ "b,label,0,\"x,y\"\n"
+				+ "\n"
+				+ "c,label,0,"));
+		assertEquals(Arrays.asList("job", "slicer", "index", "value"), csv.next());
+		assertEquals(1, csv.getLine());
+		assertEquals(Arrays.asList("a", "shell", "0", "make \"all\"\nmake test"), csv.next());
+		assertEquals(2, csv.getLine());
+		assertEquals(Arrays.asList("b", "label", "0", "x,y"), csv.next());
+		assertEquals(4, csv.getLine());
+		assertEquals(Arrays.asList(""), csv.next());
+		assertEquals(Arrays.asList("c", "label", "0", ""), csv.next());
+		assertEquals(6, csv.getLine());
+		assertNull(csv.next());
+	}
+
+	public void testUnclosedQuote() throws Exception {
+		CsvReader csv = new CsvReader(new StringReader("a,\"never closed\n"));
+		try {
+			csv.next();
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	public void testRoundTrip() throws Exception {
+		String value = "echo \"a, b\"\r\nexit 0";
+		CsvReader csv = new CsvReader(new StringReader(SliceExport.csv("job") + "," + SliceExport.csv(value) + "\r\n"));
+		// line endings outside quotes are dropped, inside they are kept
+		assertEquals(Arrays.asList("job", value), csv.next());
+	}
+}
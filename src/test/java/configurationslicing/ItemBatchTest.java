@@ -0,0 +1,81 @@
+package configurationslicing;
+
+import hudson.BulkChange;
+import hudson.model.Saveable;
+
+import java.io.IOException;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ItemBatchTest extends TestCase {
+
+	public void testOneSavePerTransform() throws Exception {
+		BooleanSlicer<CountingItem> slicer = new BooleanSlicer<CountingItem>(new CountingSpec());
+		BooleanSlice<CountingItem> slice = slicer.getInitialAccumulator();
+		slice.add("item", true);
+
+		CountingItem item = new CountingItem();
+		long avoided = ItemBatch.getSavesAvoided();
+		assertTrue(ItemBatch.transform(slicer, slice, item));
+
+		assertEquals(1, item.saves);
+		assertEquals(avoided + 2, ItemBatch.getSavesAvoided());
+	}
+
+	public void testUnchangedItemIsNotSaved() throws Exception {
+		CountingItem item = new CountingItem();
+		long committed = ItemBatch.getItemsCommitted();
+		boolean[] saved = new boolean[1];
+		assertFalse(ItemBatch.run(item, new ItemBatch.Change() {
+			public boolean apply() {
+				return false;
+			}
+		}, saved));
+
+		assertEquals(0, item.saves);
+		assertFalse(saved[0]);
+		assertEquals(committed, ItemBatch.getItemsCommitted());
+	}
+
+	static class CountingItem implements Saveable {
+		int saves;
+		public void save() throws IOException {
+			// the same check AbstractItem does
+			if (BulkChange.contains(this)) {
+				return;
+			}
+			saves++;
+		}
+	}
+
+	static class CountingSpec implements BooleanSlicer.BooleanSlicerSpec<CountingItem> {
+		public String getName() {
+			return "Counting";
+		}
+		public String getUrl() {
+			return "counting";
+		}
+		public List<CountingItem> getWorkDomain() {
+			return null;
+		}
+		public boolean getValue(CountingItem item) {
+			return false;
+		}
+		public String getName(CountingItem item) {
+			return "item";
+		}
+		public boolean setValue(CountingItem item, boolean value) {
+			// three separate modifications, each of which would persist on its own
+			try {
+				for (int i = 0; i < 3; i++) {
+					item.save();
+					ItemBatch.saveRequested();
+				}
+			} catch (IOException e) {
+				return false;
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package configurationslicing;
+
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+public class ItemSelectorTest extends TestCase {
+
+	public void testIsSelector() {
+		assertTrue(ItemSelector.isSelector("team-a/**"));
+		assertTrue(ItemSelector.isSelector("build-?"));
+		assertTrue(ItemSelector.isSelector("/.*-nightly$/"));
+		assertFalse(ItemSelector.isSelector("team-a/job"));
+		assertFalse(ItemSelector.isSelector("job[1]"));
+		assertFalse(ItemSelector.isSelector("/"));
+	}
+
+	public void testGlob() {
+		Pattern p = ItemSelector.compile("team-a/**");
+		assertTrue(p.matcher("team-a/build").matches());
+		assertTrue(p.matcher("team-a/sub/build").matches());
+		assertFalse(p.matcher("team-a").matches());
+		assertFalse(p.matcher("team-b/build").matches());
+
+		p = ItemSelector.compile("team-a/*.nightly");
+		assertTrue(p.matcher("team-a/app.nightly").matches());
+		assertFalse(p.matcher("team-a/sub/app.nightly").matches());
+		assertFalse(p.matcher("team-a/appXnightly").matches());
+
+		p = ItemSelector.compile("build-?");
+		assertTrue(p.matcher("build-1").matches());
+		assertFalse(p.matcher("build-10").matches());
+	}
+
+	public void testRegex() {
+		Pattern p = ItemSelector.compile("/.*-nightly$/");
+		assertTrue(p.matcher("app-nightly").matches());
+		assertTrue(p.matcher("team-a/app-nightly").matches());
+		assertFalse(p.matcher("app-nightly-old").matches());
+	}
+}
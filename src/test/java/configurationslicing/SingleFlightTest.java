@@ -0,0 +1,82 @@
+package configurationslicing;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class SingleFlightTest extends TestCase {
+
+	public void testConcurrentCallersShareOneComputation() throws Exception {
+		final SingleFlight<String, Object> flight = new SingleFlight<String, Object>();
+		final AtomicInteger computations = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Callable<Object> computation = new Callable<Object>() {
+			public Object call() throws Exception {
+				computations.incrementAndGet();
+				started.countDown();
+				release.await();
+				return new Object();
+			}
+		};
+		final Object[] results = new Object[4];
+		Thread[] threads = new Thread[results.length];
+		for (int i = 0; i < threads.length; i++) {
+			final int n = i;
+			threads[i] = new Thread() {
+				public void run() {
+					results[n] = flight.get("key", computation);
+				}
+			};
+		}
+		threads[0].start();
+		started.await();
+		for (int i = 1; i < threads.length; i++) {
+			threads[i].start();
+		}
+		// give the others time to join the running computation
+		while (!allWaiting(threads)) {
+			Thread.sleep(10);
+		}
+		release.countDown();
+		for (Thread thread: threads) {
+			thread.join();
+		}
+
+		assertEquals(1, computations.get());
+		for (Object result: results) {
+			assertSame(results[0], result);
+		}
+		assertEquals(0, flight.size());
+
+		// nothing is kept once done
+		assertNotSame(results[0], flight.get("key", computation));
+		assertEquals(2, computations.get());
+	}
+
+	public void testFailureReachesTheCaller() {
+		SingleFlight<String, Object> flight = new SingleFlight<String, Object>();
+		try {
+			flight.get("key", new Callable<Object>() {
+				public Object call() {
+					throw new IllegalArgumentException("bad");
+				}
+			});
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertEquals("bad", e.getMessage());
+		}
+		assertEquals(0, flight.size());
+	}
+
+	private static boolean allWaiting(Thread[] threads) {
+		for (Thread thread: threads) {
+			if (thread.getState() != Thread.State.WAITING) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
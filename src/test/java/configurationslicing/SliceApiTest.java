@@ -0,0 +1,25 @@
+package configurationslicing;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class SliceApiTest extends TestCase {
+
+	public void testMatchesETag() {
+		String etag = "\"7-42\"";
+		assertTrue(SliceApi.matchesETag("\"7-42\"", etag));
+		assertTrue(SliceApi.matchesETag("W/\"7-42\"", etag));
+		assertTrue(SliceApi.matchesETag("\"1-2\", W/\"7-42\"", etag));
+		assertTrue(SliceApi.matchesETag(" * ", etag));
+		assertFalse(SliceApi.matchesETag(null, etag));
+		assertFalse(SliceApi.matchesETag("", etag));
+		assertFalse(SliceApi.matchesETag("\"7-43\", \"8-42\"", etag));
+		// the tag has to match as a whole
+		assertFalse(SliceApi.matchesETag("7-42", etag));
+	}
+
+	public void testParseETagsKeepsQuotedCommas() {
+		assertEquals(Arrays.asList("\"a,b\"", "W/\"c\""), SliceApi.parseETags("\"a,b\" ,W/\"c\", "));
+	}
+}
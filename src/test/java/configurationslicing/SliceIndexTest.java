@@ -0,0 +1,67 @@
+package configurationslicing;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class SliceIndexTest extends TestCase {
+
+	public void testNameSets() {
+		doTestIndex(new NameSetIndex(), new NameSetIndex());
+	}
+
+	public void testIds() {
+		NameDictionary dictionary = new NameDictionary();
+		doTestIndex(new IdSliceIndex(dictionary), new IdSliceIndex(dictionary));
+	}
+
+	public void testIdsWithOwnDictionaries() {
+		doTestIndex(new IdSliceIndex(), new IdSliceIndex());
+	}
+
+	public void testMixed() {
+		doTestIndex(new NameSetIndex(), new IdSliceIndex(new NameDictionary()));
+	}
+
+	private void doTestIndex(SliceIndex index, SliceIndex other) {
+		index.add("v1", "b");
+		index.add("v1", "a");
+		index.add("v2", "a[0]");
+		index.add("v2", "a[1]");
+		index.add("v2", "c");
+		// another item, which sorts between "a" and its indexed names
+		index.add("v2", "a-b");
+		index.add("v1", "a");
+
+		assertEquals(Arrays.asList("a", "b"), index.getNames("v1"));
+		assertEquals(Arrays.asList("a-b", "a[0]", "a[1]", "c"), index.getNames("v2"));
+		assertTrue(index.getNames("v3").isEmpty());
+
+		other.add("v1", "d");
+		other.add("v3", "a[2]");
+		index.addAll(other);
+		assertEquals(Arrays.asList("a", "b", "d"), index.getNames("v1"));
+		assertEquals(Arrays.asList("a[2]"), index.getNames("v3"));
+		// the other index is left untouched
+		assertEquals(Arrays.asList("d"), other.getNames("v1"));
+
+		index.removeItem("a");
+		assertEquals(Arrays.asList("b", "d"), index.getNames("v1"));
+		assertEquals(Arrays.asList("a-b", "c"), index.getNames("v2"));
+		assertTrue(index.getNames("v3").isEmpty());
+		assertEquals(Arrays.asList("v1", "v2"), sorted(index));
+
+		// removing something that was never added is harmless
+		index.removeItem("x");
+		assertEquals(Arrays.asList("v1", "v2"), sorted(index));
+		assertTrue(index.getEstimatedSize() > 0);
+	}
+
+	private static List<String> sorted(SliceIndex index) {
+		List<String> values = index.getValues();
+		Collections.sort(values);
+		return values;
+	}
+}
@@ -0,0 +1,59 @@
+package configurationslicing;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class SliceRecordTest extends TestCase {
+
+	public void testParse() {
+		SliceRecord record = SliceRecord.parseJson("{\"item\":\"team/job\", \"index\": 2, \"value\":\"[ -f x ] && echo \\\"a\\\"\\n\"}", 7);
+		assertEquals("team/job", record.getItem());
+		assertEquals(2, record.getIndex());
+		// must stay a string, even though it looks like a JSON array
+		assertEquals("[ -f x ] && echo \"a\"\n", record.getValue());
+		assertEquals(7, record.getLine());
+	}
+
+	public void testParseBooleanAndDefaults() {
+		SliceRecord record = SliceRecord.parseJson(" {\"value\":false,\"item\":\"job\",\"note\":null} ", 1);
+		assertEquals("job", record.getItem());
+		assertEquals(0, record.getIndex());
+		assertEquals(Boolean.FALSE, record.getValue());
+	}
+
+	public void testDeleteKeepsLaterIndexes() {
+		UnorderedStringSliceTest.TestSpec spec = new UnorderedStringSliceTest.TestSpec();
+		spec.values.put("job", Arrays.asList("a", "b", "c"));
+		SliceRecordApplier.StringApplier<String> applier = new SliceRecordApplier.StringApplier<String>(spec);
+
+		assertTrue(applier.apply("job", Arrays.asList(
+				new SliceRecord("job", 0, null, 1),
+				new SliceRecord("job", 2, "C", 2))));
+		assertEquals(Arrays.asList("b", "C"), spec.values.get("job"));
+
+		// setting a deleted index again keeps it
+		assertTrue(applier.apply("job", Arrays.asList(
+				new SliceRecord("job", 1, null, 1),
+				new SliceRecord("job", 1, "D", 2))));
+		assertEquals(Arrays.asList("b", "D"), spec.values.get("job"));
+	}
+
+	public void testRejectsBrokenLines() {
+		String[] lines = {
+				"{\"value\":\"a\"}",
+				"{\"item\":\"job\"",
+				"{\"item\":\"job\"} trailing",
+				"[\"job\"]",
+				"{\"item\":1}",
+		};
+		for (String line: lines) {
+			try {
+				SliceRecord.parseJson(line, 1);
+				fail(line);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+}
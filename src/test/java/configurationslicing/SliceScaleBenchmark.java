@@ -0,0 +1,171 @@
+package configurationslicing;
+
+import hudson.matrix.MatrixProject;
+import hudson.maven.MavenModuleSet;
+import hudson.model.AbstractProject;
+import hudson.model.FreeStyleProject;
+import hudson.model.ManagementLink;
+import hudson.tasks.LogRotator;
+import hudson.tasks.Mailer;
+import hudson.tasks.Shell;
+import hudson.triggers.TimerTrigger;
+
+import java.net.URL;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jvnet.hudson.test.HudsonTestCase;
+
+import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.RefreshHandler;
+import com.gargoylesoftware.htmlunit.html.HtmlCheckBoxInput;
+import com.gargoylesoftware.htmlunit.html.HtmlForm;
+import com.gargoylesoftware.htmlunit.html.HtmlInput;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.html.HtmlTextArea;
+
+/**
+ * Times every registered slicer against a few thousand jobs: accumulating the slice
+ * (cold and from the snapshot), rendering the page, and submitting a change through the form.
+ *
+ * Not part of the normal build, run it with
+ * <code>mvn test -Pscale-benchmark -Dscale.jobs=2000</code>.
+ */
+public class SliceScaleBenchmark extends HudsonTestCase {
+
+	private static final Pattern APPLY_URL = Pattern.compile("/apply/(\\d+)/");
+
+	private static final String[] COMMANDS = {
+		"make all", "mvn -B clean install", "./gradlew build", "ant dist", "npm ci && npm test",
+		"make all\nmake test", "python setup.py test", "./build.sh", "./build.sh --release", "go test ./...",
+	};
+	private static final String[] TIMERS = { "H * * * *", "H H(0-7) * * *", "H/15 * * * *", "@daily", "H 2 * * 1-5" };
+	private static final String[] RECIPIENTS = { "team-a@example.com", "team-b@example.com", "ops@example.com", "" };
+
+	public void testScale() throws Exception {
+		int jobs = Integer.getInteger("scale.jobs", 500);
+		long start = System.currentTimeMillis();
+		createJobs(jobs);
+		System.out.println("Created " + jobs + " jobs in " + (System.currentTimeMillis() - start) + "ms");
+
+		ConfigurationSlicing slicing = ManagementLink.all().get(ConfigurationSlicing.class);
+		WebClient wc = createWebClient();
+		// the apply page refreshes itself while running, don't follow that
+		wc.setRefreshHandler(new RefreshHandler() {
+			public void handleRefresh(Page page, URL url, int seconds) {
+			}
+		});
+
+		System.out.println("slicer\taccumulate ms\tsnapshot ms\trender ms\tsubmit ms\tchanged\titems/s\tsaves/s");
+		for (Slicer<?, ?> slicer: slicing.getAxes()) {
+			measure(slicing, wc, slicer);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void measure(ConfigurationSlicing slicing, WebClient wc, Slicer<?, ?> slicer) throws Exception {
+		SliceSnapshots.invalidate();
+		long t0 = System.nanoTime();
+		slicing.new SliceExecutor(slicer, null).getSlice();
+		long accumulate = System.nanoTime() - t0;
+
+		t0 = System.nanoTime();
+		slicing.new SliceExecutor(slicer, null).getSlice();
+		long snapshot = System.nanoTime() - t0;
+
+		t0 = System.nanoTime();
+		HtmlPage page = wc.goTo("slicing/" + slicer.getUrl());
+		long render = System.nanoTime() - t0;
+
+		HtmlForm form = page.getFormByName("sliceconfig");
+		if (!change(form)) {
+			report(slicer, accumulate, snapshot, render, -1, null, 0);
+			return;
+		}
+		long committed = ItemBatch.getItemsCommitted();
+		t0 = System.nanoTime();
+		HtmlPage result = submit(form);
+		Matcher m = APPLY_URL.matcher(result.getWebResponse().getUrl().toString());
+		ApplyTask<?, ?> task = null;
+		if (m.find()) {
+			task = slicing.getApply(Integer.parseInt(m.group(1)));
+			while (task.isRunning()) {
+				Thread.sleep(10);
+			}
+		}
+		long submit = System.nanoTime() - t0;
+		report(slicer, accumulate, snapshot, render, submit, task, ItemBatch.getItemsCommitted() - committed);
+	}
+
+	/**
+	 * Moves the items of the first value group to the value of the second group, so the new value
+	 * is one the spec accepts, or flips every checkbox on the page.
+	 * @return false if there was nothing sensible to change
+	 */
+	private boolean change(HtmlForm form) {
+		List<HtmlTextArea> values = form.getTextAreasByName("configValue");
+		if (values.size() >= 3) {
+			// the last one is the blank row for new values
+			values.get(0).setText(values.get(1).getText());
+			return true;
+		}
+		List<HtmlInput> checkboxes = form.getInputsByName("my.checked");
+		for (HtmlInput checkbox: checkboxes) {
+			((HtmlCheckBoxInput) checkbox).setChecked(!checkbox.isChecked());
+		}
+		return !checkboxes.isEmpty();
+	}
+
+	private void report(Slicer<?, ?> slicer, long accumulate, long snapshot, long render, long submit,
+			ApplyTask<?, ?> task, long saves) {
+		StringBuilder buf = new StringBuilder();
+		buf.append(slicer.getUrl());
+		buf.append('\t').append(accumulate / 1000000);
+		buf.append('\t').append(snapshot / 1000000);
+		buf.append('\t').append(render / 1000000);
+		if (submit < 0 || task == null) {
+			buf.append("\t-\t-\t-\t-");
+		} else {
+			double seconds = Math.max(task.getDuration(), 1) / 1000.0;
+			buf.append('\t').append(submit / 1000000);
+			buf.append('\t').append(task.getChangedCount());
+			buf.append('\t').append(Math.round(task.getDone() / seconds));
+			buf.append('\t').append(Math.round(saves / seconds));
+		}
+		System.out.println(buf);
+	}
+
+	private void createJobs(int count) throws Exception {
+		for (int i = 0; i < count; i++) {
+			AbstractProject<?, ?> project;
+			String name = String.format("job-%05d", i);
+			switch (i % 7) {
+			case 5:
+				MatrixProject matrix = createMatrixProject(name);
+				matrix.getBuildersList().add(new Shell(COMMANDS[i % COMMANDS.length]));
+				project = matrix;
+				break;
+			case 6:
+				MavenModuleSet maven = createMavenProject(name);
+				maven.setGoals(i % 2 == 0 ? "clean install" : "clean deploy");
+				project = maven;
+				break;
+			default:
+				FreeStyleProject freestyle = createFreeStyleProject(name);
+				freestyle.getBuildersList().add(new Shell(COMMANDS[i % COMMANDS.length]));
+				Mailer mailer = new Mailer();
+				mailer.recipients = RECIPIENTS[i % RECIPIENTS.length];
+				freestyle.getPublishersList().add(mailer);
+				project = freestyle;
+			}
+			configure(project, i);
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	private void configure(AbstractProject<?, ?> project, int i) throws Exception {
+		project.addTrigger(new TimerTrigger(TIMERS[i % TIMERS.length]));
+		project.setLogRotator(new LogRotator(-1, 10 * (1 + i % 3), -1, -1));
+	}
+}
@@ -0,0 +1,46 @@
+package configurationslicing;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class SortedNameSetTest extends TestCase {
+
+	public void testAddSortsAndRemovesDuplicates() {
+		SortedNameSet set = new SortedNameSet("value");
+		set.add("c");
+		set.add("a");
+		set.add("b");
+		set.add("a");
+
+		assertEquals(3, set.size());
+		assertEquals(Arrays.asList("a", "b", "c"), set.toList());
+		assertTrue(set.contains("b"));
+		assertFalse(set.contains("d"));
+	}
+
+	public void testRemove() {
+		SortedNameSet set = new SortedNameSet("value");
+		set.add("b");
+		set.add("a");
+
+		assertTrue(set.remove("a"));
+		assertFalse(set.remove("a"));
+		assertEquals(Arrays.asList("b"), set.toList());
+		assertTrue(set.remove("b"));
+		assertTrue(set.isEmpty());
+	}
+
+	public void testCopyIsIndependent() {
+		SortedNameSet set = new SortedNameSet("value");
+		set.add("a");
+		SortedNameSet copy = new SortedNameSet(set);
+		copy.add("b");
+		set.addAll(copy);
+		copy.remove("a");
+
+		assertSame(set.getValue(), copy.getValue());
+		assertEquals(Arrays.asList("a", "b"), set.toList());
+		assertEquals(Arrays.asList("b"), copy.toList());
+	}
+}
@@ -0,0 +1,345 @@
+package configurationslicing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import net.sf.json.JSONObject;
+
+import configurationslicing.UnorderedStringSlicer.UnorderedStringSlicerSpec;
+
+public class UnorderedStringSliceTest extends TestCase {
+
+	public void testMergeKeepsAllNames() {
+		TestSpec spec = new TestSpec();
+		UnorderedStringSlicer<String> slicer = new UnorderedStringSlicer<String>(spec);
+
+		UnorderedStringSlice<String> s1 = slicer.getInitialAccumulator();
+		s1.add("a", Arrays.asList("v1"));
+		s1.add("b", Arrays.asList("v2"));
+		UnorderedStringSlice<String> s2 = slicer.getInitialAccumulator();
+		s2.add("c", Arrays.asList("v1"));
+		s2.add("d", Arrays.asList("v3"));
+
+		UnorderedStringSlice<String> merged = slicer.combine(s1, s2);
+		assertEquals(Arrays.asList("a", "c"), merged.getItemNames("v1"));
+		assertEquals(Arrays.asList("b"), merged.getItemNames("v2"));
+		assertEquals(Arrays.asList("d"), merged.getItemNames("v3"));
+
+		// the merged-in slice must not share state with the result
+		merged.add("e", Arrays.asList("v3"));
+		assertEquals(Arrays.asList("d"), s2.getItemNames("v3"));
+	}
+
+	public void testEqualValuesAreKeptOnce() {
+		TestSpec spec = new TestSpec();
+		StringBuilder script = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			script.append("echo line ").append(i).append('\n');
+		}
+		UnorderedStringSlice<String> slice = new UnorderedStringSlice<String>(spec);
+		slice.add("a", Arrays.asList(script.toString()));
+		long one = slice.getEstimatedSize();
+		assertTrue(one > 2 * script.length());
+
+		// a second item with its own copy of the same value only adds its name
+		slice.add("b", Arrays.asList(script.toString()));
+		assertTrue(slice.getEstimatedSize() - one < 200);
+		assertEquals(Arrays.asList("a", "b"), slice.getItemNames(script.toString()));
+	}
+
+	public void testRemoveIndexedItem() {
+		TestSpec spec = new TestSpec();
+		UnorderedStringSlice<String> slice = new UnorderedStringSlice<String>(spec);
+		slice.add("a[0]", Arrays.asList("v1"));
+		slice.add("a[1]", Arrays.asList("v2"));
+		slice.add("b", Arrays.asList("v1"));
+
+		slice.remove("a");
+		assertEquals(Arrays.asList("b"), slice.getItemNames("v1"));
+		assertTrue(slice.getItemNames("v2").isEmpty());
+		assertFalse(slice.getConfiguredValues().contains("v2"));
+
+		// removing something that was never added is harmless
+		slice.remove("c");
+		assertEquals(Arrays.asList("b"), slice.getItemNames("v1"));
+	}
+
+	public void testBooleanMerge() {
+		BooleanSlice<String> s1 = new BooleanSlice<String>(null);
+		s1.add("a", true);
+		BooleanSlice<String> s2 = new BooleanSlice<String>(null);
+		s2.add("b", false);
+
+		BooleanSlice<String> merged = s1.merge(s2);
+		assertTrue(merged.exists("a"));
+		assertTrue(merged.exists("b"));
+		assertTrue(merged.get("a"));
+		assertFalse(merged.get("b"));
+	}
+
+	public void testBooleanWindowFiltersOnValue() {
+		BooleanSlice<String> slice = new BooleanSlice<String>(new BooleanSlicer.BooleanSlicerSpec<String>() {
+			public String getName() {
+				return "Test";
+			}
+			public String getUrl() {
+				return "testbool";
+			}
+			public List<String> getWorkDomain() {
+				return Arrays.asList("true-job", "b");
+			}
+			public boolean getValue(String item) {
+				return false;
+			}
+			public String getName(String item) {
+				return item;
+			}
+			public boolean setValue(String item, boolean value) {
+				return false;
+			}
+		});
+		slice.add("true-job", false);
+		slice.add("b", true);
+
+		assertEquals(Arrays.asList("b"), slice.getConfiguredItems(new SliceWindow(0, 0, "true", null)));
+		assertEquals(Arrays.asList("true-job"), slice.getConfiguredItems(new SliceWindow(0, 0, "FALSE", null)));
+	}
+
+	public void testOnlyEditedItemsAreChanged() {
+		TestSpec spec = new TestSpec();
+		spec.values.put("a", Arrays.asList("one\ntwo"));
+		spec.values.put("b", Arrays.asList("one\ntwo"));
+		spec.values.put("c", Arrays.asList("three"));
+		UnorderedStringSlicer<String> slicer = new UnorderedStringSlicer<String>(spec);
+
+		UnorderedStringSlice<String> original = accumulate(spec);
+
+		// the browser posts CRLF line endings, and "b" was moved to the "three" group
+		List<String> configValues = Arrays.asList("one\r\ntwo", "three");
+		List<String> itemNames = Arrays.asList("a\n", "b\nc\n");
+		UnorderedStringSlice<String> submitted = new UnorderedStringSlice<String>(spec, configValues, itemNames);
+
+		assertFalse(slicer.isChanged(original, submitted, "a"));
+		assertTrue(slicer.isChanged(original, submitted, "b"));
+		assertFalse(slicer.isChanged(original, submitted, "c"));
+		assertFalse(slicer.isChanged(original, submitted, "not-submitted"));
+	}
+
+	public void testPlanDoesNotTouchItems() {
+		TestSpec spec = new TestSpec();
+		spec.values.put("a", Arrays.asList("v1"));
+		spec.values.put("b", Arrays.asList("v1"));
+		UnorderedStringSlicer<String> slicer = new UnorderedStringSlicer<String>(spec);
+		UnorderedStringSlice<String> original = accumulate(spec);
+		UnorderedStringSlice<String> submitted = new UnorderedStringSlice<String>(spec,
+				Arrays.asList("v1", "v2"), Arrays.asList("a\n", "b\n"));
+
+		List<SlicePlan.Entry<String>> plan = SliceWorkerPool.plan(slicer, original, submitted, Arrays.asList("a", "b"));
+		assertEquals(1, plan.size());
+		assertEquals("b", plan.get(0).getItem());
+		assertEquals(Arrays.asList("v1"), plan.get(0).getBefore());
+		assertEquals(Arrays.asList("v2"), plan.get(0).getAfter());
+		assertEquals(Arrays.asList("v1"), spec.values.get("b"));
+	}
+
+	public void testWindowKeepsWhatWasNotShown() {
+		TestSpec spec = new TestSpec();
+		spec.values.put("a", Arrays.asList("v1"));
+		spec.values.put("b", Arrays.asList("v1"));
+		spec.values.put("c", Arrays.asList("v2"));
+		spec.values.put("d", Arrays.asList("v3"));
+		UnorderedStringSlicer<String> slicer = new UnorderedStringSlicer<String>(spec);
+		UnorderedStringSlice<String> original = accumulate(spec);
+
+		// the first page only shows "v1", plus the blank row for new values
+		SliceWindow window = new SliceWindow(0, 1, null, null);
+		assertEquals(Arrays.asList("v1", ""), original.getConfiguredValues(window));
+		assertEquals(3, window.getPageCount());
+
+		// "b" was moved to a new value on that page
+		UnorderedStringSlice<String> submitted = original.newInstance(
+				Arrays.asList("v1", "v9"), Arrays.asList("a\n", "b\n"), new SliceWindow(0, 1, null, null));
+		assertFalse(slicer.isChanged(original, submitted, "a"));
+		assertTrue(slicer.isChanged(original, submitted, "b"));
+		assertFalse(slicer.isChanged(original, submitted, "c"));
+		assertFalse(slicer.isChanged(original, submitted, "d"));
+		assertEquals(Arrays.asList("v9"), submitted.get("b"));
+		assertEquals(Arrays.asList("v3"), submitted.get("d"));
+	}
+
+	public void testWindowCarriesOverWhatTheFormDidNotShow() {
+		TestSpec spec = new TestSpec();
+		spec.values.put("a", Arrays.asList("v1"));
+		spec.values.put("b", Arrays.asList("v1"));
+		spec.values.put("c", Arrays.asList("v2"));
+		// created after the form was rendered
+		spec.values.put("e", Arrays.asList("v1"));
+		UnorderedStringSlice<String> original = accumulate(spec);
+
+		Map<String, Set<String>> shown = new HashMap<String, Set<String>>();
+		shown.put("v1", new HashSet<String>(Arrays.asList("a", "b")));
+		shown.put("", new HashSet<String>());
+		UnorderedStringSlice<String> submitted = original.newInstance(
+				Arrays.asList("v1", ""), Arrays.asList("a\n", ""), new SliceWindow(0, 1, null, null), shown);
+		assertEquals(Arrays.asList("v1"), submitted.get("e"));
+		assertEquals(Arrays.asList("v2"), submitted.get("c"));
+		// taken off the row it was shown on
+		assertNull(submitted.get("b"));
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testSingleRowIsSubmitted() throws Exception {
+		TestSpec spec = new TestSpec();
+		spec.values.put("a", Arrays.asList("v1"));
+		spec.values.put("b", Arrays.asList("v2"));
+		UnorderedStringSlice<String> original = accumulate(spec);
+
+		// the filter left one row, so json-lib posts its fields as strings rather than arrays
+		JSONObject form = new JSONObject();
+		form.put("configValue", "v1");
+		form.put("itemNames", "a\nc\n");
+		form.put("shownValue", "v1");
+		form.put("shownNames", "a\n");
+		form.put("windowPage", "0");
+		form.put("windowPageSize", "100");
+		form.put("windowFilter", "v1");
+		UnorderedStringSlice<String> submitted = (UnorderedStringSlice<String>) original.newInstance(null, form);
+		assertEquals(Arrays.asList("v1"), submitted.get("a"));
+		assertEquals(Arrays.asList("v1"), submitted.get("c"));
+		assertEquals(Arrays.asList("v2"), submitted.get("b"));
+	}
+
+	public void testSelectors() {
+		TestSpec spec = new TestSpec();
+		spec.values.put("team-a/build", Arrays.asList("v1"));
+		spec.values.put("team-a/test", Arrays.asList("v1"));
+		spec.values.put("team-b/app-nightly", Arrays.asList("v1"));
+		spec.values.put("team-b/test", Arrays.asList("v1"));
+		UnorderedStringSlice<String> original = accumulate(spec);
+
+		// the literal name wins over the glob
+		UnorderedStringSlice<String> submitted = original.newInstance(
+				Arrays.asList("v2", "v3"),
+				Arrays.asList("team-a/**\n", "/.*-nightly$/\nteam-a/test\n"),
+				SliceWindow.ALL);
+		assertEquals(Arrays.asList("v2"), submitted.get("team-a/build"));
+		assertEquals(Arrays.asList("v3"), submitted.get("team-a/test"));
+		assertEquals(Arrays.asList("v3"), submitted.get("team-b/app-nightly"));
+		assertNull(submitted.get("team-b/test"));
+	}
+
+	public void testSelectorInWindow() {
+		TestSpec spec = new TestSpec();
+		spec.values.put("a1", Arrays.asList("v1"));
+		spec.values.put("a2", Arrays.asList("v2"));
+		spec.values.put("b", Arrays.asList("v2"));
+		UnorderedStringSlice<String> original = accumulate(spec);
+
+		// only "v1" is shown, but the selector also takes "a2" away from "v2"
+		UnorderedStringSlice<String> submitted = original.newInstance(
+				Arrays.asList("v1", "v9"), Arrays.asList("", "a?\n"), new SliceWindow(0, 1, null, null));
+		assertEquals(Arrays.asList("v9"), submitted.get("a1"));
+		assertEquals(Arrays.asList("v9"), submitted.get("a2"));
+		assertEquals(Arrays.asList("v2"), submitted.get("b"));
+	}
+
+	public void testSelectorAppendedToUnmodifiedPage() {
+		TestSpec spec = new TestSpec();
+		spec.values.put("a1", Arrays.asList("v1"));
+		spec.values.put("a2", Arrays.asList("v2"));
+		spec.values.put("b", Arrays.asList("v2"));
+		UnorderedStringSlice<String> original = accumulate(spec);
+
+		// the page as rendered, every item still listed in its row, plus a new selector row
+		UnorderedStringSlice<String> submitted = original.newInstance(
+				Arrays.asList("v1", "v2", "v9"), Arrays.asList("a1\n", "a2\nb\n", "a*\n"), SliceWindow.ALL);
+		assertEquals(Arrays.asList("v9"), submitted.get("a1"));
+		assertEquals(Arrays.asList("v9"), submitted.get("a2"));
+		assertEquals(Arrays.asList("v2"), submitted.get("b"));
+	}
+
+	public void testOverlappingSelectorsAreRejected() {
+		TestSpec spec = new TestSpec();
+		spec.values.put("a1", Arrays.asList("v1"));
+		UnorderedStringSlice<String> original = accumulate(spec);
+
+		try {
+			original.newInstance(Arrays.asList("v8", "v9"), Arrays.asList("a?\n", "*1\n"), SliceWindow.ALL);
+			fail("overlapping selectors accepted");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("a1"));
+		}
+	}
+
+	public void testSelectorThatIsAlsoANameIsRejected() {
+		TestSpec spec = new TestSpec();
+		spec.values.put("build*", Arrays.asList("v1"));
+		spec.values.put("build-app", Arrays.asList("v1"));
+		UnorderedStringSlice<String> original = accumulate(spec);
+
+		try {
+			original.newInstance(Arrays.asList("v2"), Arrays.asList("build*\n"), SliceWindow.ALL);
+			fail("ambiguous selector accepted");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("build*"));
+		}
+	}
+
+	public void testWindowPrefix() {
+		TestSpec spec = new TestSpec();
+		UnorderedStringSlice<String> slice = new UnorderedStringSlice<String>(spec);
+		slice.add("team-a-build", Arrays.asList("v1"));
+		slice.add("team-b-build", Arrays.asList("v1"));
+		slice.add("team-b-test", Arrays.asList("v2"));
+
+		SliceWindow window = new SliceWindow(0, 0, null, "TEAM-A");
+		assertEquals(Arrays.asList("v1", ""), slice.getConfiguredValues(window));
+		assertEquals("team-a-build\n", slice.getItemNamesString("v1", window));
+	}
+
+	private static UnorderedStringSlice<String> accumulate(TestSpec spec) {
+		UnorderedStringSlicer<String> slicer = new UnorderedStringSlicer<String>(spec);
+		UnorderedStringSlice<String> slice = slicer.getInitialAccumulator();
+		for (String item: spec.getWorkDomain()) {
+			slice = slicer.accumulate(slice, item);
+		}
+		return slice;
+	}
+
+	/**
+	 * Spec over plain strings, so the slice can be exercised without a running Jenkins.
+	 */
+	static class TestSpec extends UnorderedStringSlicerSpec<String> {
+		Map<String, List<String>> values = new HashMap<String, List<String>>();
+
+		public String getName() {
+			return "Test";
+		}
+		public String getUrl() {
+			return "test";
+		}
+		public List<String> getWorkDomain() {
+			List<String> list = new ArrayList<String>(values.keySet());
+			return list;
+		}
+		public List<String> getValues(String item) {
+			return values.get(item);
+		}
+		public String getName(String item) {
+			return item;
+		}
+		public boolean setValues(String item, List<String> set) {
+			values.put(item, new ArrayList<String>(set));
+			return true;
+		}
+		public String getDefaultValueString() {
+			return null;
+		}
+	}
+}
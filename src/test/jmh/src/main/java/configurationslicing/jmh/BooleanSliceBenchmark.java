@@ -0,0 +1,70 @@
+package configurationslicing.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import configurationslicing.BooleanSlice;
+import configurationslicing.BooleanSlice.ItemState;
+
+/**
+ * The paths that opening and submitting a boolean slice page go through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BooleanSliceBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    int size;
+
+    SyntheticDomain domain;
+    SyntheticDomain.BooleanSpec spec;
+    BooleanSlice<String> slice;
+    List<ItemState> form;
+
+    @Setup
+    public void setup() {
+        domain = new SyntheticDomain(size, 2);
+        spec = domain.getBooleanSpec();
+        slice = accumulate();
+        form = new ArrayList<ItemState>();
+        for (String item: domain.items) {
+            form.add(new ItemState(item, domain.flags.get(item)));
+        }
+    }
+
+    @Benchmark
+    public BooleanSlice<String> accumulate() {
+        BooleanSlice<String> s = new BooleanSlice<String>(spec);
+        for (String item: domain.items) {
+            s.add(item, domain.flags.get(item));
+        }
+        return s;
+    }
+
+    @Benchmark
+    public List<String> getConfiguredItems() {
+        return slice.getConfiguredItems();
+    }
+
+    @Benchmark
+    public BooleanSlice<String> reconstructFromForm() {
+        return new BooleanSlice<String>(spec, form);
+    }
+}
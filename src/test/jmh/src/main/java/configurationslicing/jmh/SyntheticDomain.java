@@ -0,0 +1,91 @@
+package configurationslicing.jmh;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import configurationslicing.BooleanSlicer.BooleanSlicerSpec;
+import configurationslicing.UnorderedStringSlicer.UnorderedStringSlicerSpec;
+
+/**
+ * Item names like "team-07/job-01234" with skewed values, the way a few values (a JDK,
+ * a label, a timeout) are shared by most jobs while a long tail is used by one job each.
+ */
+public class SyntheticDomain {
+
+    final List<String> items = new ArrayList<String>();
+    final Map<String, String> values = new HashMap<String, String>();
+    final Map<String, Boolean> flags = new HashMap<String, Boolean>();
+
+    /**
+     * @param distinct how many different values there are at most
+     */
+    public SyntheticDomain(int size, int distinct) {
+        // fixed seed, so every run and every fork measures the same domain
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            String name = String.format("team-%02d/job-%05d", i % 50, i);
+            items.add(name);
+            int value = (int) (distinct * Math.pow(random.nextDouble(), 3));
+            values.put(name, "echo building with setting " + value + "\nmake all");
+            flags.put(name, random.nextInt(10) == 0);
+        }
+    }
+
+    public StringSpec getStringSpec() {
+        return new StringSpec();
+    }
+
+    public BooleanSpec getBooleanSpec() {
+        return new BooleanSpec();
+    }
+
+    class StringSpec extends UnorderedStringSlicerSpec<String> {
+        public String getName() {
+            return "Synthetic";
+        }
+        public String getUrl() {
+            return "synthetic";
+        }
+        public List<String> getWorkDomain() {
+            return items;
+        }
+        public List<String> getValues(String item) {
+            List<String> list = new ArrayList<String>(1);
+            list.add(values.get(item));
+            return list;
+        }
+        public String getName(String item) {
+            return item;
+        }
+        public boolean setValues(String item, List<String> set) {
+            throw new UnsupportedOperationException();
+        }
+        public String getDefaultValueString() {
+            return null;
+        }
+    }
+
+    class BooleanSpec implements BooleanSlicerSpec<String> {
+        public String getName() {
+            return "Synthetic";
+        }
+        public String getUrl() {
+            return "synthetic-boolean";
+        }
+        public List<String> getWorkDomain() {
+            return items;
+        }
+        public boolean getValue(String item) {
+            return flags.get(item);
+        }
+        public String getName(String item) {
+            return item;
+        }
+        public boolean setValue(String item, boolean value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package configurationslicing.jmh;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import configurationslicing.UnorderedStringSlice;
+
+/**
+ * The paths that opening and submitting a string slice page go through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnorderedStringSliceBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    int size;
+
+    /**
+     * low: a handful of shared values, like JDKs or labels; high: about one value per 10 items, like shell steps.
+     */
+    @Param({ "low", "high" })
+    String cardinality;
+
+    SyntheticDomain domain;
+    SyntheticDomain.StringSpec spec;
+    UnorderedStringSlice<String> slice;
+    List<String> configuredValues;
+    List<String> formValues;
+    List<String> formNames;
+
+    @Setup
+    public void setup() {
+        domain = new SyntheticDomain(size, "low".equals(cardinality) ? 10 : Math.max(10, size / 10));
+        spec = domain.getStringSpec();
+        slice = accumulate();
+        configuredValues = slice.getConfiguredValues();
+        // what the browser posts back: one textarea pair per configured value
+        formValues = new ArrayList<String>(configuredValues);
+        formNames = new ArrayList<String>();
+        for (String value: configuredValues) {
+            formNames.add(slice.getItemNamesString(value));
+        }
+    }
+
+    @Benchmark
+    public UnorderedStringSlice<String> accumulate() {
+        UnorderedStringSlice<String> s = new UnorderedStringSlice<String>(spec);
+        for (String item: domain.items) {
+            s.add(item, Collections.singletonList(domain.values.get(item)));
+        }
+        return s;
+    }
+
+    @Benchmark
+    public List<String> getConfiguredValues() {
+        return slice.getConfiguredValues();
+    }
+
+    @Benchmark
+    public void getItemNamesString(Blackhole bh) {
+        for (String value: configuredValues) {
+            bh.consume(slice.getItemNamesString(value));
+        }
+    }
+
+    @Benchmark
+    public UnorderedStringSlice<String> reconstructFromForm() {
+        return new UnorderedStringSlice<String>(spec, formValues, formNames);
+    }
+}